@@ -0,0 +1,119 @@
+package logic;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// labels buggy classes from the affected version interval [IV, FV) of each issue,
+// releases are swept one after another so they can also be labelled while streamed
+public class BuggyLabeller {
+
+    private final int releaseCount;
+    private final Map<String, Integer> fileIds;
+    // interval starts and ends grouped by release (compressed rows)
+    private final int[] startOffsets;
+    private final int[] endOffsets;
+    private final int[] startIds;
+    private final int[] endIds;
+    // open intervals of each file at the current release
+    private final int[] openCount;
+    private final BitSet open;
+    private int nextRelease;
+
+    public BuggyLabeller(List<Issue> issues, int releaseCount) {
+        this.releaseCount = releaseCount;
+        this.fileIds = new HashMap<>();
+
+        // one affected interval per (issue, touched file)
+        int eventCount = 0;
+        for (Issue issue : issues) {
+            if (firstAffected(issue) <= lastAffected(issue, releaseCount))
+                eventCount += issue.getTouchedFiles().size();
+        }
+        int[] from = new int[eventCount];
+        int[] to = new int[eventCount];
+        int[] ids = new int[eventCount];
+
+        int event = 0;
+        for (Issue issue : issues) {
+            int first = firstAffected(issue);
+            int last = lastAffected(issue, releaseCount);
+            if (first > last)
+                continue;
+            for (String fileName : issue.getTouchedFiles()) {
+                from[event] = first;
+                to[event] = last;
+                ids[event] = this.fileIds.computeIfAbsent(fileName, name -> this.fileIds.size());
+                event++;
+            }
+        }
+
+        this.startOffsets = new int[releaseCount + 2];
+        this.endOffsets = new int[releaseCount + 2];
+        for (int i = 0; i < eventCount; i++) {
+            this.startOffsets[from[i] + 1]++;
+            this.endOffsets[to[i] + 1]++;
+        }
+        for (int r = 1; r < releaseCount + 2; r++) {
+            this.startOffsets[r] += this.startOffsets[r - 1];
+            this.endOffsets[r] += this.endOffsets[r - 1];
+        }
+        this.startIds = new int[eventCount];
+        this.endIds = new int[eventCount];
+        int[] startFill = this.startOffsets.clone();
+        int[] endFill = this.endOffsets.clone();
+        for (int i = 0; i < eventCount; i++) {
+            this.startIds[startFill[from[i]]++] = ids[i];
+            this.endIds[endFill[to[i]]++] = ids[i];
+        }
+
+        this.openCount = new int[this.fileIds.size()];
+        this.open = new BitSet(this.fileIds.size());
+        this.nextRelease = 1;
+    }
+
+    // releases ordered by index starting from 1
+    public static void label(List<Release> releases, List<Issue> issues) {
+        BuggyLabeller labeller = new BuggyLabeller(issues, releases.size());
+        for (Release release : releases)
+            labeller.labelNext(release);
+    }
+
+    // label the release following the last one labelled
+    public void labelNext(Release release) {
+        int r = this.nextRelease;
+        if (release.getReleaseIndex() != r || r > this.releaseCount)
+            throw new IllegalStateException("Expected release " + r + " but got " + release.getReleaseIndex());
+
+        for (int i = this.startOffsets[r]; i < this.startOffsets[r + 1]; i++) {
+            this.openCount[this.startIds[i]]++;
+            this.open.set(this.startIds[i]);
+        }
+
+        if (!this.open.isEmpty()) {
+            for (JavaFile file : release.getJavaFiles()) {
+                Integer id = this.fileIds.get(file.getName());
+                if (id != null && this.open.get(id))
+                    file.setBuggy(this.openCount[id]);
+            }
+        }
+
+        // intervals ending at r are closed after labelling r
+        for (int i = this.endOffsets[r]; i < this.endOffsets[r + 1]; i++) {
+            if (--this.openCount[this.endIds[i]] == 0)
+                this.open.clear(this.endIds[i]);
+        }
+        this.nextRelease++;
+    }
+
+    // injected version included
+    private static int firstAffected(Issue issue) {
+        return Math.max(1, issue.getInjectedVersion().getReleaseIndex());
+    }
+
+    // fix version excluded, capped to the last release considered
+    private static int lastAffected(Issue issue, int releaseCount) {
+        return Math.min(issue.getFixVersion().getReleaseIndex() - 1, releaseCount);
+    }
+}
@@ -0,0 +1,143 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// binary snapshots of completed pipeline units, a restarted run resumes from them
+public class Checkpoint {
+
+    public static final String MINING = "mining";
+    private static final Logger LOGGER = Logger.getLogger(Checkpoint.class.getName());
+    private static final String CHECKPOINT_DIR = "checkpoint";
+    private static final String FILE_EXT = ".bin";
+    private static final int MAGIC = 0x434B5054;
+    // bump when any snapshot layout changes, older snapshots are then ignored
+    private static final int FORMAT_VERSION = 1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final File dir;
+
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface SnapshotReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    public Checkpoint(String projectName, String phase) {
+        this(new File(CHECKPOINT_DIR + File.separator + projectName + File.separator + phase));
+    }
+
+    // snapshots kept in a directory of their own
+    Checkpoint(File dir) {
+        this.dir = dir;
+        if (!this.dir.isDirectory() && !this.dir.mkdirs())
+            LOGGER.log(Level.WARNING, "Checkpoint dir not created");
+    }
+
+    private File file(String unit) {
+        return new File(this.dir, unit + FILE_EXT);
+    }
+
+    public void save(String unit, SnapshotWriter writer) throws IOException {
+        File target = this.file(unit);
+        File tmp = new File(target.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(unit);
+            writer.write(out);
+        }
+        // a unit is completed only once its snapshot is fully written
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public boolean exists(String unit) {
+        return this.file(unit).isFile();
+    }
+
+    // null if the unit has no valid snapshot or the reader rejects it
+    public <T> T load(String unit, SnapshotReader<T> reader) throws IOException {
+        File source = this.file(unit);
+        if (!source.isFile())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(source)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !unit.equals(in.readUTF())) {
+                String report = "Ignoring checkpoint " + source.getPath() + " with different format";
+                LOGGER.log(Level.WARNING, report);
+                return null;
+            }
+            T value = reader.read(in);
+            String report;
+            if (value != null) {
+                report = "Resumed from checkpoint " + source.getPath();
+                LOGGER.log(Level.INFO, report);
+            } else {
+                report = "Ignoring stale checkpoint " + source.getPath();
+                LOGGER.log(Level.INFO, report);
+            }
+            return value;
+        }
+    }
+
+    public void delete(String unit) {
+        File file = this.file(unit);
+        if (file.exists() && !file.delete()) {
+            String report = "Unable to delete " + file.getPath();
+            LOGGER.log(Level.WARNING, report);
+        }
+    }
+
+    // drop every snapshot of the phase once its output is written
+    public void clear() {
+        File[] files = this.dir.listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (!file.delete()) {
+                String report = "Unable to delete " + file.getPath();
+                LOGGER.log(Level.WARNING, report);
+            }
+        }
+    }
+
+    // unbounded length, writeUTF is limited to 64KB
+    public static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeDate(DataOutputStream out, LocalDateTime date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toLocalDate().toEpochDay());
+    }
+
+    // dates are stored at day precision like every date of the pipeline
+    public static LocalDateTime readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay).atStartOfDay();
+    }
+}
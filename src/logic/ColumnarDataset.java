@@ -0,0 +1,421 @@
+package logic;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ * binary dataset: one row group per release, each column of a group stored as a deflated chunk
+ *
+ * header   MAGIC, FORMAT_VERSION, column count, (column name)*
+ * groups   (chunk)* in group and column order
+ * footer   group count, (release index, row count, (offset, compressed length, raw length)*)*
+ * trailer  footer offset, MAGIC
+ */
+public class ColumnarDataset {
+
+    public static final String FILE_EXT = ".bin";
+    private static final int MAGIC = 0x44534342;
+    private static final int FORMAT_VERSION = 1;
+    private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int ENCODERS = Runtime.getRuntime().availableProcessors();
+    // groups encoded ahead of the one being written
+    private static final int MAX_PENDING = 2 * ENCODERS;
+
+    private final String path;
+    private final DatasetWriter.Column[] columns;
+    private final List<GroupIndex> groups;
+
+    private static class GroupIndex {
+        private final int releaseIndex;
+        private final int rowCount;
+        private final long[] offsets;
+        private final int[] compressedLengths;
+        private final int[] rawLengths;
+
+        private GroupIndex(int releaseIndex, int rowCount, int columnCount) {
+            this.releaseIndex = releaseIndex;
+            this.rowCount = rowCount;
+            this.offsets = new long[columnCount];
+            this.compressedLengths = new int[columnCount];
+            this.rawLengths = new int[columnCount];
+        }
+    }
+
+    // compressed chunks of one group ready to be appended
+    private static class EncodedGroup {
+        private final int releaseIndex;
+        private final int rowCount;
+        private final byte[][] chunks;
+        private final int[] rawLengths;
+
+        private EncodedGroup(int releaseIndex, int rowCount, int columnCount) {
+            this.releaseIndex = releaseIndex;
+            this.rowCount = rowCount;
+            this.chunks = new byte[columnCount][];
+            this.rawLengths = new int[columnCount];
+        }
+    }
+
+    private ColumnarDataset(String path, DatasetWriter.Column[] columns, List<GroupIndex> groups) {
+        this.path = path;
+        this.columns = columns;
+        this.groups = groups;
+    }
+
+    public static ColumnarDataset open(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            if (file.length() < TRAILER_SIZE)
+                throw new IOException("Not a columnar dataset: " + path);
+            file.seek(file.length() - TRAILER_SIZE);
+            long footerOffset = file.readLong();
+            if (file.readInt() != MAGIC)
+                throw new IOException("Not a columnar dataset: " + path);
+
+            file.seek(0);
+            if (file.readInt() != MAGIC || file.readInt() != FORMAT_VERSION)
+                throw new IOException("Unsupported columnar dataset version: " + path);
+            DatasetWriter.Column[] columns = new DatasetWriter.Column[file.readInt()];
+            for (int c = 0; c < columns.length; c++)
+                columns[c] = DatasetWriter.Column.valueOf(file.readUTF());
+
+            file.seek(footerOffset);
+            int groupCount = file.readInt();
+            List<GroupIndex> groups = new ArrayList<>(groupCount);
+            for (int g = 0; g < groupCount; g++) {
+                GroupIndex group = new GroupIndex(file.readInt(), file.readInt(), columns.length);
+                for (int c = 0; c < columns.length; c++) {
+                    group.offsets[c] = file.readLong();
+                    group.compressedLengths[c] = file.readInt();
+                    group.rawLengths[c] = file.readInt();
+                }
+                groups.add(group);
+            }
+            return new ColumnarDataset(path, columns, groups);
+        }
+    }
+
+    public DatasetWriter.Column[] getColumns() {
+        return this.columns.clone();
+    }
+
+    // release index of each row group in file order
+    public int[] getReleaseIndexes() {
+        return this.groups.stream().mapToInt(group -> group.releaseIndex).toArray();
+    }
+
+    // only the chunks of the requested releases and columns are read and inflated
+    public Table read(int fromRelease, int toRelease, DatasetWriter.Column... selected) throws IOException {
+        List<GroupIndex> selectedGroups = new ArrayList<>();
+        int rowCount = 0;
+        for (GroupIndex group : this.groups) {
+            if (group.releaseIndex >= fromRelease && group.releaseIndex <= toRelease) {
+                selectedGroups.add(group);
+                rowCount += group.rowCount;
+            }
+        }
+
+        Table table = new Table(rowCount, selected);
+        try (RandomAccessFile file = new RandomAccessFile(this.path, "r")) {
+            for (int s = 0; s < selected.length; s++) {
+                int c = Arrays.asList(this.columns).indexOf(selected[s]);
+                if (c < 0)
+                    throw new IllegalArgumentException("Column not stored: " + selected[s]);
+
+                int row = 0;
+                for (GroupIndex group : selectedGroups) {
+                    byte[] compressed = new byte[group.compressedLengths[c]];
+                    file.seek(group.offsets[c]);
+                    file.readFully(compressed);
+                    decodeChunk(inflate(compressed, group.rawLengths[c]), selected[s].getType(), group.rowCount, table, s, row);
+                    row += group.rowCount;
+                }
+            }
+        }
+        return table;
+    }
+
+    // decoded columns of the selected releases, numbers for numeric and flag columns, strings for text
+    public static class Table {
+        private final int rowCount;
+        private final DatasetWriter.Column[] columns;
+        private final double[][] numbers;
+        private final String[][] texts;
+
+        private Table(int rowCount, DatasetWriter.Column[] columns) {
+            this.rowCount = rowCount;
+            this.columns = columns;
+            this.numbers = new double[columns.length][];
+            this.texts = new String[columns.length][];
+            for (int s = 0; s < columns.length; s++) {
+                if (columns[s].getType() == DatasetWriter.Type.TEXT)
+                    this.texts[s] = new String[rowCount];
+                else
+                    this.numbers[s] = new double[rowCount];
+            }
+        }
+
+        public int getRowCount() {
+            return this.rowCount;
+        }
+
+        private int slot(DatasetWriter.Column column) {
+            int s = Arrays.asList(this.columns).indexOf(column);
+            if (s < 0)
+                throw new IllegalArgumentException("Column not read: " + column);
+            return s;
+        }
+
+        public double[] getNumbers(DatasetWriter.Column column) {
+            return this.numbers[this.slot(column)];
+        }
+
+        public String[] getTexts(DatasetWriter.Column column) {
+            return this.texts[this.slot(column)];
+        }
+    }
+
+    private static void decodeChunk(byte[] raw, DatasetWriter.Type type, int rowCount, Table table, int slot, int firstRow) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        for (int r = firstRow; r < firstRow + rowCount; r++) {
+            switch (type) {
+                case INTEGER:
+                    table.numbers[slot][r] = readVarLong(in);
+                    break;
+                case FLOAT:
+                    table.numbers[slot][r] = in.readFloat();
+                    break;
+                case DOUBLE:
+                    table.numbers[slot][r] = in.readDouble();
+                    break;
+                case FLAG:
+                    table.numbers[slot][r] = in.readByte();
+                    break;
+                case TEXT:
+                default:
+                    table.texts[slot][r] = in.readUTF();
+                    break;
+            }
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished())
+                length += inflater.inflate(raw, length, rawLength - length);
+            if (length != rawLength)
+                throw new IOException("Truncated dataset chunk");
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted dataset chunk", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // zigzag varint, small counts take a single byte
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    // rows are added in release order, a group is encoded in background once its release is complete
+    public static class Writer implements Closeable {
+        private final File target;
+        private final File tmp;
+        private final DatasetWriter.Column[] columns;
+        private final DataOutputStream out;
+        private final ExecutorService encoders;
+        private final Deque<Future<EncodedGroup>> pending;
+        private final List<GroupIndex> written;
+        private List<JavaFile> current;
+        private int currentRelease;
+        private long position;
+
+        public Writer(String path, DatasetWriter.Column[] columns) throws IOException {
+            this.target = new File(path);
+            this.tmp = new File(path + ".tmp");
+            this.columns = columns;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.tmp), 1 << 16));
+            this.encoders = Executors.newFixedThreadPool(ENCODERS, runnable -> {
+                Thread thread = new Thread(runnable, "dataset-encoder");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.pending = new ArrayDeque<>();
+            this.written = new ArrayList<>();
+            this.current = new ArrayList<>();
+            this.currentRelease = -1;
+
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(FORMAT_VERSION);
+            this.out.writeInt(columns.length);
+            for (DatasetWriter.Column column : columns)
+                this.out.writeUTF(column.name());
+            this.position = this.out.size();
+        }
+
+        public void add(JavaFile file) throws IOException {
+            if (file.getReleaseIndex() != this.currentRelease) {
+                this.submitCurrent();
+                this.currentRelease = file.getReleaseIndex();
+            }
+            this.current.add(file);
+        }
+
+        private void submitCurrent() throws IOException {
+            if (this.current.isEmpty())
+                return;
+            final List<JavaFile> rows = this.current;
+            final int releaseIndex = this.currentRelease;
+            this.pending.addLast(this.encoders.submit(() -> encodeGroup(releaseIndex, rows, this.columns)));
+            this.current = new ArrayList<>();
+            while (this.pending.size() > MAX_PENDING)
+                this.writeGroup(this.pending.removeFirst());
+        }
+
+        // groups are appended in submission order whatever order they are encoded in
+        private void writeGroup(Future<EncodedGroup> future) throws IOException {
+            EncodedGroup group;
+            try {
+                group = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while encoding dataset", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Dataset encoding failed", e.getCause());
+            }
+
+            GroupIndex index = new GroupIndex(group.releaseIndex, group.rowCount, this.columns.length);
+            for (int c = 0; c < this.columns.length; c++) {
+                index.offsets[c] = this.position;
+                index.compressedLengths[c] = group.chunks[c].length;
+                index.rawLengths[c] = group.rawLengths[c];
+                this.out.write(group.chunks[c]);
+                this.position += group.chunks[c].length;
+            }
+            this.written.add(index);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.submitCurrent();
+                while (!this.pending.isEmpty())
+                    this.writeGroup(this.pending.removeFirst());
+
+                long footerOffset = this.position;
+                this.out.writeInt(this.written.size());
+                for (GroupIndex group : this.written) {
+                    this.out.writeInt(group.releaseIndex);
+                    this.out.writeInt(group.rowCount);
+                    for (int c = 0; c < this.columns.length; c++) {
+                        this.out.writeLong(group.offsets[c]);
+                        this.out.writeInt(group.compressedLengths[c]);
+                        this.out.writeInt(group.rawLengths[c]);
+                    }
+                }
+                this.out.writeLong(footerOffset);
+                this.out.writeInt(MAGIC);
+                this.out.close();
+                Files.move(this.tmp.toPath(), this.target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                this.encoders.shutdownNow();
+                this.out.close();
+                Files.deleteIfExists(this.tmp.toPath());
+            }
+        }
+    }
+
+    private static EncodedGroup encodeGroup(int releaseIndex, List<JavaFile> rows, DatasetWriter.Column[] columns) throws IOException {
+        EncodedGroup group = new EncodedGroup(releaseIndex, rows.size(), columns.length);
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(raw);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (int c = 0; c < columns.length; c++) {
+                raw.reset();
+                for (JavaFile file : rows) {
+                    switch (columns[c].getType()) {
+                        case INTEGER:
+                            writeVarLong(out, (long) columns[c].number(file));
+                            break;
+                        case FLOAT:
+                            out.writeFloat((float) columns[c].number(file));
+                            break;
+                        case DOUBLE:
+                            out.writeDouble(columns[c].number(file));
+                            break;
+                        case FLAG:
+                            out.writeByte((int) columns[c].number(file));
+                            break;
+                        case TEXT:
+                        default:
+                            out.writeUTF(columns[c].text(file));
+                            break;
+                    }
+                }
+                out.flush();
+                group.rawLengths[c] = raw.size();
+                group.chunks[c] = deflate(deflater, raw.toByteArray());
+            }
+        } finally {
+            deflater.end();
+        }
+        return group;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            compressed.write(buffer, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+}
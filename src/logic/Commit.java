@@ -37,6 +37,8 @@ public class Commit {
 
     public String getAuthor() { return this.author; }
 
+    public String getMessage() { return this.message; }
+
     public List<CommitFileData> getTouchedFiles() { return this.touchedFiles; }
 
     public List<String> getTouchedFilesNames() {
@@ -0,0 +1,154 @@
+package logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// csv rows formatted straight into a reused buffer, written out in large chunks as they are produced
+public class CsvWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    // platform charset like the PrintWriter it replaces, files written here are read back with it
+    public static final Charset CHARSET = Charset.defaultCharset();
+
+    private final Writer out;
+    private final StringBuilder buffer;
+    private char[] chunk;
+    private boolean rowStart;
+
+    public CsvWriter(String path) throws IOException {
+        this(new OutputStreamWriter(Files.newOutputStream(Paths.get(path)), CHARSET));
+    }
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+        this.buffer = new StringBuilder(BUFFER_SIZE + 1024);
+        this.chunk = new char[0];
+        this.rowStart = true;
+    }
+
+    private StringBuilder cell() {
+        if (!this.rowStart)
+            this.buffer.append(',');
+        this.rowStart = false;
+        return this.buffer;
+    }
+
+    public CsvWriter add(int value) {
+        this.cell().append(value);
+        return this;
+    }
+
+    public CsvWriter add(long value) {
+        this.cell().append(value);
+        return this;
+    }
+
+    // same text as Float.toString and Double.toString
+    public CsvWriter add(float value) {
+        this.cell().append(value);
+        return this;
+    }
+
+    public CsvWriter add(double value) {
+        this.cell().append(value);
+        return this;
+    }
+
+    public CsvWriter add(String value) {
+        appendEscaped(this.cell(), value);
+        return this;
+    }
+
+    // cell already formatted and escaped
+    public CsvWriter addRaw(CharSequence cells, int start, int end) {
+        this.cell().append(cells, start, end);
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        this.buffer.append(LINE_SEPARATOR);
+        this.rowStart = true;
+        if (this.buffer.length() >= BUFFER_SIZE)
+            this.drain();
+    }
+
+    public void writeRow(String... cells) throws IOException {
+        for (String cell : cells)
+            this.add(cell);
+        this.endRow();
+    }
+
+    private void drain() throws IOException {
+        int length = this.buffer.length();
+        if (this.chunk.length < length)
+            this.chunk = new char[length];
+        this.buffer.getChars(0, length, this.chunk, 0);
+        this.out.write(this.chunk, 0, length);
+        this.buffer.setLength(0);
+    }
+
+    public void flush() throws IOException {
+        this.drain();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.drain();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    public static String escape(String data) {
+        StringBuilder sb = new StringBuilder(data.length() + 2);
+        appendEscaped(sb, data);
+        return sb.toString();
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r' || c == '\u000B' || c == '\u000C' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // values with , " or ' are quoted with inner quotes doubled, otherwise line breaks become spaces
+    public static void appendEscaped(StringBuilder sb, String data) {
+        boolean quote = false;
+        boolean lineBreak = false;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (c == ',' || c == '"' || c == '\'')
+                quote = true;
+            else if (isLineBreak(c))
+                lineBreak = true;
+        }
+
+        if (quote) {
+            sb.append('"');
+            for (int i = 0; i < data.length(); i++) {
+                char c = data.charAt(i);
+                if (c == '"')
+                    sb.append('"');
+                sb.append(c);
+            }
+            sb.append('"');
+        } else if (lineBreak) {
+            for (int i = 0; i < data.length(); i++) {
+                char c = data.charAt(i);
+                if (!isLineBreak(c))
+                    sb.append(c);
+                else if (c != '\r' || i + 1 >= data.length() || data.charAt(i + 1) != '\n')
+                    // \r\n is a single break
+                    sb.append(' ');
+            }
+        } else {
+            sb.append(data);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package logic;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// dataset rows stored per release with a manifest of the release each partition was mined from,
+// a new run mines only new releases and relabels the stored ones
+public class DatasetPartitions {
+
+    private static final Logger LOGGER = Logger.getLogger(DatasetPartitions.class.getName());
+    private static final String MANIFEST = "manifest.properties";
+    private static final String PARTITION_PREFIX = "release-";
+    private static final String FILE_EXT = ".csv";
+    private static final String SOURCE_KEY = ".source";
+    private static final String COUNT_KEY = "releases";
+
+    private final String projectName;
+    private final File dir;
+    private final Properties manifest;
+    // releases ordered by index starting from 1
+    private final List<Release> releases;
+    private int minedCount;
+    private int relabelledCount;
+
+    private DatasetPartitions(String projectName, List<Release> releases) {
+        this.projectName = projectName;
+        this.dir = new File(FileManager.getPartitionsPath(projectName));
+        this.manifest = new Properties();
+        this.releases = releases;
+        this.minedCount = 0;
+        this.relabelledCount = 0;
+    }
+
+    public static DatasetPartitions load(String projectName, List<Release> releases) throws IOException {
+        DatasetPartitions partitions = new DatasetPartitions(projectName, releases);
+        if (!partitions.dir.isDirectory() && !partitions.dir.mkdirs())
+            LOGGER.log(Level.WARNING, "Partitions dir not created");
+
+        File manifestFile = new File(partitions.dir, MANIFEST);
+        if (manifestFile.isFile()) {
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                partitions.manifest.load(in);
+            }
+        }
+        return partitions;
+    }
+
+    private File partitionFile(Release release) {
+        return new File(this.dir, PARTITION_PREFIX + release.getReleaseIndex() + FILE_EXT);
+    }
+
+    // metrics of a release depend on its date and on the date of the previous one
+    private String sourceOf(Release release) {
+        int index = release.getReleaseIndex();
+        String source = release.getGitName() + "@" + release.getReleaseDate().toLocalDate();
+        if (index > 1)
+            source += "/" + this.releases.get(index - 2).getReleaseDate().toLocalDate();
+        return source;
+    }
+
+    public boolean isStored(Release release) {
+        String source = this.manifest.getProperty(PARTITION_PREFIX + release.getReleaseIndex() + SOURCE_KEY);
+        return this.sourceOf(release).equals(source) && this.partitionFile(release).isFile();
+    }
+
+    // mined and labelled release
+    public void store(Release release) throws IOException {
+        FileManager.writePartition(this.partitionFile(release), release.getJavaFiles());
+        this.manifest.setProperty(PARTITION_PREFIX + release.getReleaseIndex() + SOURCE_KEY, this.sourceOf(release));
+        this.minedCount++;
+    }
+
+    // java files of a stored partition, only name and index are restored for labelling
+    public List<JavaFile> readFiles(Release release) throws IOException {
+        List<JavaFile> fileList = new ArrayList<>();
+        for (String row : Files.readAllLines(this.partitionFile(release).toPath(), CsvWriter.CHARSET)) {
+            if (!row.isEmpty())
+                fileList.add(new JavaFile(FileManager.getRowFileName(row), release.getReleaseIndex(), null));
+        }
+        return fileList;
+    }
+
+    // rewrite the partition only when new fixes changed its labels, files in readFiles order
+    public void relabel(Release release) throws IOException {
+        File partition = this.partitionFile(release);
+        List<String> rows = Files.readAllLines(partition.toPath(), CsvWriter.CHARSET);
+        List<JavaFile> fileList = release.getJavaFiles();
+        List<String> relabelled = new ArrayList<>(rows.size());
+        boolean changed = false;
+
+        int k = 0;
+        for (String row : rows) {
+            if (row.isEmpty())
+                continue;
+            String newRow = FileManager.relabelRow(row, fileList.get(k++));
+            changed |= !newRow.equals(row);
+            relabelled.add(newRow);
+        }
+
+        if (changed) {
+            Files.write(partition.toPath(), relabelled, CsvWriter.CHARSET);
+            this.relabelledCount++;
+        }
+    }
+
+    public boolean hasChanged() {
+        return this.minedCount + this.relabelledCount > 0 || this.releases.size() != Integer.parseInt(this.manifest.getProperty(COUNT_KEY, "0"));
+    }
+
+    // drop partitions of releases no longer considered and store the manifest
+    public void save() throws IOException {
+        int stored = Integer.parseInt(this.manifest.getProperty(COUNT_KEY, "0"));
+        for (int index = this.releases.size() + 1; index <= stored; index++) {
+            this.manifest.remove(PARTITION_PREFIX + index + SOURCE_KEY);
+            File partition = new File(this.dir, PARTITION_PREFIX + index + FILE_EXT);
+            if (partition.exists() && !partition.delete()) {
+                String report = "Unable to delete " + partition.getPath();
+                LOGGER.log(Level.WARNING, report);
+            }
+        }
+        this.manifest.setProperty(COUNT_KEY, Integer.toString(this.releases.size()));
+
+        try (OutputStream out = new FileOutputStream(new File(this.dir, MANIFEST))) {
+            this.manifest.store(out, "dataset partitions of " + this.projectName);
+        }
+
+        String report = "Partitions mined: " + this.minedCount + " relabelled: " + this.relabelledCount + " reused: " + (this.releases.size() - this.minedCount - this.relabelledCount);
+        LOGGER.log(Level.INFO, report);
+    }
+
+    // dataset csv concatenated from the partitions in release order
+    public void assemble(boolean addComments) throws IOException {
+        File target = new File(FileManager.getDatasetPath(this.projectName, addComments));
+        File tmp = new File(target.getPath() + ".tmp");
+
+        // partitions and dataset in the charset CsvWriter writes
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(tmp.toPath(), CsvWriter.CHARSET))) {
+            pw.println(FileManager.getDatasetHeader(addComments));
+            for (Release release : this.releases) {
+                for (String row : Files.readAllLines(this.partitionFile(release).toPath(), CsvWriter.CHARSET)) {
+                    if (!row.isEmpty())
+                        pw.println(addComments ? row : FileManager.removeCommentsColumn(row));
+                }
+            }
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the binary copy no longer matches the csv
+        Files.deleteIfExists(new File(FileManager.getBinaryDatasetPath(this.projectName, addComments)).toPath());
+
+        String report = target.getPath() + " assembled from " + this.releases.size() + " partitions";
+        LOGGER.log(Level.INFO, report);
+    }
+}
@@ -0,0 +1,182 @@
+package logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+// one pass over the java files: each cell is formatted once and copied to every sink projecting its column
+public class DatasetWriter implements Closeable {
+
+    public enum Type {
+        INTEGER,
+        FLOAT,
+        DOUBLE,
+        FLAG,
+        TEXT
+    }
+
+    public enum Column {
+        RELEASE_NUMBER("ReleaseNumber", Type.INTEGER, JavaFile::getReleaseIndex),
+        JAVA_FILE("JavaFile", JavaFile::getName),
+        SIZE("Size", Type.INTEGER, JavaFile::getSize),
+        COMMENTS_PERCENTAGE("CommentsPercentage", Type.FLOAT, JavaFile::getCommentsPercentage),
+        LOC_TOUCHED("LOCtouched", Type.INTEGER, JavaFile::getTouchedLOC),
+        NR("NR", Type.INTEGER, JavaFile::getCommitCount),
+        NAUTH("NAuth", Type.INTEGER, JavaFile::getAuthorCount),
+        LOC_ADDED("LOCadded", Type.INTEGER, JavaFile::getTotalAddedLOC),
+        MAX_LOC_ADDED("MAX_LOCadded", Type.INTEGER, JavaFile::getMaxAddedLOC),
+        AVG_LOC_ADDED("AVG_LOCadded", Type.DOUBLE, JavaFile::getAvgAddedLOC),
+        CHURN("Churn", Type.INTEGER, JavaFile::getTotalChurn),
+        MAX_CHURN("MAX_Churn", Type.INTEGER, JavaFile::getMaxChurn),
+        AVG_CHURN("AVG_Churn", Type.DOUBLE, JavaFile::getAvgChurn),
+        CHG_SET_SIZE("ChgSetSize", Type.INTEGER, JavaFile::getTotalChgSetSize),
+        MAX_CHG_SET("MAX_ChgSet", Type.INTEGER, JavaFile::getMaxChgSetSize),
+        AVG_CHG_SET("AVG_ChgSet", Type.DOUBLE, JavaFile::getAvgChgSetSize),
+        AGE("Age", Type.INTEGER, JavaFile::getAge),
+        WEIGHTED_AGE("WeightedAge", Type.INTEGER, JavaFile::getWeightedAge),
+        NFIX("NFix", Type.INTEGER, JavaFile::getNFix),
+        BUGGY("Buggy", Type.FLAG, file -> file.isBuggy() ? 1 : 0);
+
+        private final String header;
+        private final Type type;
+        private final ToDoubleFunction<JavaFile> number;
+        private final Function<JavaFile, String> text;
+
+        Column(String header, Type type, ToDoubleFunction<JavaFile> number) {
+            this.header = header;
+            this.type = type;
+            this.number = number;
+            this.text = null;
+        }
+
+        Column(String header, Function<JavaFile, String> text) {
+            this.header = header;
+            this.type = Type.TEXT;
+            this.number = null;
+            this.text = text;
+        }
+
+        public String getHeader() {
+            return this.header;
+        }
+
+        public Type getType() {
+            return this.type;
+        }
+
+        // integers are exact up to 2^53, flags are 1 or 0
+        public double number(JavaFile file) {
+            return this.number.applyAsDouble(file);
+        }
+
+        public String text(JavaFile file) {
+            return this.text.apply(file);
+        }
+    }
+
+    private static final Column[] ALL_COLUMNS = Column.values();
+
+    private final List<CsvWriter> sinks;
+    private final List<Column[]> projections;
+    private final List<ColumnarDataset.Writer> binarySinks;
+    // columns read by at least one sink
+    private final boolean[] needed;
+    // cells of the current row, column c is cells[bounds[c], bounds[c + 1])
+    private final StringBuilder cells;
+    private final int[] bounds;
+
+    public DatasetWriter() {
+        this.sinks = new ArrayList<>();
+        this.projections = new ArrayList<>();
+        this.binarySinks = new ArrayList<>();
+        this.needed = new boolean[ALL_COLUMNS.length];
+        this.cells = new StringBuilder(256);
+        this.bounds = new int[ALL_COLUMNS.length + 1];
+    }
+
+    public static String[] header(Column[] columns) {
+        String[] header = new String[columns.length];
+        for (int i = 0; i < columns.length; i++)
+            header[i] = columns[i].getHeader();
+        return header;
+    }
+
+    // the sink is closed with this writer
+    public void addSink(CsvWriter sink, Column[] columns) {
+        this.sinks.add(sink);
+        this.projections.add(columns);
+        for (Column column : columns)
+            this.needed[column.ordinal()] = true;
+    }
+
+    // binary sinks read the values themselves when their row group is encoded
+    public void addSink(ColumnarDataset.Writer sink) {
+        this.binarySinks.add(sink);
+    }
+
+    public void write(List<JavaFile> dataList) throws IOException {
+        for (JavaFile file : dataList)
+            this.write(file);
+    }
+
+    public void write(JavaFile file) throws IOException {
+        this.cells.setLength(0);
+        for (Column column : ALL_COLUMNS) {
+            this.bounds[column.ordinal()] = this.cells.length();
+            if (this.needed[column.ordinal()])
+                this.format(column, file);
+        }
+        this.bounds[ALL_COLUMNS.length] = this.cells.length();
+
+        for (int s = 0; s < this.sinks.size(); s++) {
+            CsvWriter sink = this.sinks.get(s);
+            for (Column column : this.projections.get(s))
+                sink.addRaw(this.cells, this.bounds[column.ordinal()], this.bounds[column.ordinal() + 1]);
+            sink.endRow();
+        }
+        for (ColumnarDataset.Writer sink : this.binarySinks)
+            sink.add(file);
+    }
+
+    private void format(Column column, JavaFile file) {
+        // same text as the boxed toString of each getter
+        switch (column.getType()) {
+            case INTEGER:
+                this.cells.append((long) column.number(file));
+                break;
+            case FLOAT:
+                this.cells.append((float) column.number(file));
+                break;
+            case DOUBLE:
+                this.cells.append(column.number(file));
+                break;
+            case FLAG:
+                this.cells.append(column.number(file) != 0 ? "Yes" : "No");
+                break;
+            case TEXT:
+            default:
+                CsvWriter.appendEscaped(this.cells, column.text(file));
+                break;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        List<Closeable> all = new ArrayList<>(this.sinks);
+        all.addAll(this.binarySinks);
+        for (Closeable sink : all) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+}
@@ -0,0 +1,139 @@
+package logic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import weka.classifiers.Classifier;
+import weka.core.SerializationHelper;
+import weka.core.WekaException;
+
+// results of every evaluated cell of a walk forward step, kept across runs and keyed by the content of the step sets,
+// a run computes only the cells it does not find for the current content
+public class EvaluationCache {
+
+    private static final Logger LOGGER = Logger.getLogger(EvaluationCache.class.getName());
+    private static final String CACHE_DIR = "cache" + File.separator + "evaluation";
+    private static final String MODEL_DIR = "models";
+    private static final String MODEL_EXT = ".model";
+    // part of the evaluation settings hashed into every step key, bump when the cell layout changes
+    public static final int FORMAT_VERSION = 1;
+    // -Devaluation.cacheModels=true also stores the trained classifiers
+    private static final boolean CACHE_MODELS = Boolean.getBoolean("evaluation.cacheModels");
+
+    private final Checkpoint store;
+    private final File modelDir;
+    private final String datasetName;
+
+    public EvaluationCache(String projectName, String datasetName) {
+        File dir = new File(CACHE_DIR + File.separator + projectName);
+        this.store = new Checkpoint(dir);
+        this.modelDir = new File(dir, MODEL_DIR);
+        this.datasetName = datasetName;
+        if (CACHE_MODELS && !this.modelDir.isDirectory() && !this.modelDir.mkdirs())
+            LOGGER.log(Level.WARNING, "Model cache dir not created");
+    }
+
+    private String unit(int step) {
+        return "step-" + this.datasetName + "-" + step;
+    }
+
+    // incremental cells are trained differently, so they never share an entry with batch ones
+    public static String key(WekaManager.FeatureSelection featureSelection, WekaManager.Sampling sampling, WekaManager.ClassifierType classifierType, WekaManager.CostSensitive costSensitive, boolean incremental) {
+        return featureSelection + "/" + sampling + "/" + classifierType + "/" + costSensitive + (incremental ? "/INCREMENTAL" : "");
+    }
+
+    // empty when the step sets or the settings changed since the cells were stored,
+    // an unreadable entry is a miss and is dropped
+    public Map<String, WekaData> load(int step, long stepHash) {
+        Map<String, WekaData> cells;
+        try {
+            cells = this.store.load(this.unit(step), in -> readCells(in, stepHash));
+        } catch (IOException | RuntimeException e) {
+            String report = "Dropping unreadable evaluation cache entry " + this.unit(step) + ": " + e;
+            LOGGER.log(Level.WARNING, report);
+            this.store.delete(this.unit(step));
+            cells = null;
+        }
+        return cells != null ? cells : new LinkedHashMap<>();
+    }
+
+    // cells not evaluated by this run are kept for the next ones
+    public void save(int step, long stepHash, Map<String, WekaData> cells) throws IOException {
+        Map<String, WekaData> stored = this.load(step, stepHash);
+        stored.putAll(cells);
+        this.store.save(this.unit(step), out -> writeCells(out, stepHash, stored));
+    }
+
+    public void saveModel(int step, String key, Classifier classifier) throws WekaException {
+        if (!CACHE_MODELS)
+            return;
+        File model = new File(this.modelDir, this.unit(step) + "-" + key.replace('/', '-') + MODEL_EXT);
+        try {
+            SerializationHelper.write(model.getPath(), classifier);
+        } catch (Exception e) {
+            throw new WekaException(e);
+        }
+    }
+
+    private static Map<String, WekaData> readCells(DataInputStream in, long stepHash) throws IOException {
+        if (in.readLong() != stepHash)
+            return null;
+
+        int size = in.readInt();
+        Map<String, WekaData> cells = new LinkedHashMap<>();
+        for (int k = 0; k < size; k++) {
+            String key = in.readUTF();
+            WekaData data = new WekaData(in.readUTF(), in.readInt(), WekaManager.FeatureSelection.valueOf(in.readUTF()), WekaManager.Sampling.valueOf(in.readUTF()), WekaManager.ClassifierType.valueOf(in.readUTF()), WekaManager.CostSensitive.valueOf(in.readUTF()));
+            data.setTrainingData(in.readDouble());
+            data.setDefectiveTraining(in.readDouble());
+            data.setDefectiveTesting(in.readDouble());
+            data.setTruePositive(in.readInt());
+            data.setFalsePositive(in.readInt());
+            data.setTrueNegative(in.readInt());
+            data.setFalseNegative(in.readInt());
+            data.setPrecision(in.readDouble());
+            data.setRecall(in.readDouble());
+            data.setAuc(in.readDouble());
+            data.setKappa(in.readDouble());
+            if (in.readBoolean())
+                data.setPredictions(Predictions.read(in));
+            cells.put(key, data);
+        }
+        return cells;
+    }
+
+    private static void writeCells(DataOutputStream out, long stepHash, Map<String, WekaData> cells) throws IOException {
+        out.writeLong(stepHash);
+        out.writeInt(cells.size());
+        for (Map.Entry<String, WekaData> cell : cells.entrySet()) {
+            WekaData data = cell.getValue();
+            out.writeUTF(cell.getKey());
+            out.writeUTF(data.getDatasetName());
+            out.writeInt(data.getTrainingRelease());
+            out.writeUTF(data.getFeatureSelection());
+            out.writeUTF(data.getBalancing());
+            out.writeUTF(data.getClassifier());
+            out.writeUTF(data.getSensitivity());
+            out.writeDouble(data.getTrainingData());
+            out.writeDouble(data.getDefectiveTraining());
+            out.writeDouble(data.getDefectiveTesting());
+            out.writeInt(data.getTruePositive());
+            out.writeInt(data.getFalsePositive());
+            out.writeInt(data.getTrueNegative());
+            out.writeInt(data.getFalseNegative());
+            out.writeDouble(data.getPrecision());
+            out.writeDouble(data.getRecall());
+            out.writeDouble(data.getAuc());
+            out.writeDouble(data.getKappa());
+            out.writeBoolean(data.getPredictions() != null);
+            if (data.getPredictions() != null)
+                data.getPredictions().write(out);
+        }
+    }
+}
@@ -3,7 +3,9 @@ package logic;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.List;
@@ -18,9 +20,15 @@ public class FileManager {
     private static final String COMM_NAME = "-wc";
     private static final String EVAL_NAME = "-final";
     private static final String[] WEKA_COLUMNS = new String[] {"Dataset","#TrainingRelease","%Training","%Defective training", "%Defective testing", "Classifier", "Balancing", "Feature Selection", "Sensitivity", "TP", "FP", "TN", "FN", "Precision", "Recall", "AUC", "Kappa"};
+    private static final String CURVE_NAME = "-curves";
+    private static final String[] CURVE_COLUMNS = new String[] {"Dataset","#TrainingRelease", "Classifier", "Balancing", "Feature Selection", "Threshold", "TP", "FP", "TN", "FN", "Precision", "Recall", "Kappa", "Cost"};
+    // thresholds 0, 1/SWEEP_STEPS, ..., 1
+    private static final int SWEEP_STEPS = 20;
     private static final String FILE_EXT = ".csv";
-    private static final String[] COLUMNS = new String[] {"ReleaseNumber","JavaFile", "Size", "LOCtouched", "NR", "NAuth", "LOCadded","MAX_LOCadded", "AVG_LOCadded", "Churn", "MAX_Churn", "AVG_Churn", "ChgSetSize", "MAX_ChgSet", "AVG_ChgSet", "Age","WeightedAge", "NFix" ,"Buggy"};
-    private static final String[] COLUMNS_COMM = new String[] {"ReleaseNumber","JavaFile", "Size", "CommentsPercentage" , "LOCtouched", "NR", "NAuth", "LOCadded","MAX_LOCadded", "AVG_LOCadded", "Churn", "MAX_Churn", "AVG_Churn", "ChgSetSize", "MAX_ChgSet", "AVG_ChgSet", "Age","WeightedAge", "NFix" ,"Buggy"};
+    private static final String PROPORTION_PATH = OUTPUT_DIR + File.separator + "proportion" + FILE_EXT;
+    private static final String[] PROPORTION_COLUMNS = new String[] {"Project", "P"};
+    private static final DatasetWriter.Column[] COLUMNS_COMM = DatasetWriter.Column.values();
+    private static final DatasetWriter.Column[] COLUMNS = Arrays.stream(COLUMNS_COMM).filter(c -> c != DatasetWriter.Column.COMMENTS_PERCENTAGE).toArray(DatasetWriter.Column[]::new);
 
     private FileManager() {}
 
@@ -51,12 +59,7 @@ public class FileManager {
     }
 
     private static String escapeSpecialCharacters(String data) {
-        String escapedData = data.replaceAll("\\R", " ");
-        if (data.contains(",") || data.contains("\"") || data.contains("'")) {
-            data = data.replace("\"", "\"\"");
-            escapedData = "\"" + data + "\"";
-        }
-        return escapedData;
+        return CsvWriter.escape(data);
     }
 
     private static String convertToCSV(String[] data) {
@@ -79,125 +82,84 @@ public class FileManager {
         }
     }
 
-    public static void generateDatasetCsv(String projectName, List<JavaFile> dataList, boolean addComments) {
-        List<String[]> dataToConvert = new ArrayList<>();
-        String datasetFileName;
-
-        if (addComments) {
-            dataToConvert.add(COLUMNS_COMM);
-            datasetFileName = DATASET_DIR + File.separator + projectName + COMM_NAME + FILE_EXT;
-        }
-        else {
-            dataToConvert.add(COLUMNS);
-            datasetFileName = DATASET_DIR + File.separator + projectName + FILE_EXT;
+    // both dataset variants written in a single pass over the files
+    public static void generateDatasetCsv(String projectName, List<JavaFile> dataList, boolean withComments, boolean withoutComments) {
+        try (DatasetWriter writer = openDatasetWriter(projectName, withComments, withoutComments)) {
+            writer.write(dataList);
+        }catch(IOException e) {
+            e.printStackTrace();
+            return;
         }
 
-        //file metrics
-        int releaseIndex;
-        String fileName;
-        int size;
-        float commentsPercentage;
-        long touchedLOC;
-
-        int commitCount;
-        int authorCount;
-
-        int addedLOC;
-        Integer maxAdded;
-        double avgAdded;
-
-        Integer churn;
-        Integer maxChurn;
-        double avgChurn;
-
-        Integer chgSetSize;
-        Integer maxChgSet;
-        double avgChgSet;
-
-        long age;
-        long weightedAge;
-
-        int nFix;
-
-        String buggy;
-
-        for (JavaFile file : dataList) {
-            //release index
-            releaseIndex = file.getReleaseIndex();
-
-            //file name
-            fileName = file.getName();
-
-            //size
-            size = file.getSize();
-
-            //comments percentage
-            commentsPercentage = file.getCommentsPercentage();
-
-            //LOC touched
-            touchedLOC = file.getTouchedLOC();
-
-            //NR
-            commitCount = file.getCommitCount();
-
-            //NAuth
-            authorCount = file.getAuthorCount();
-
-            //LOC added
-            addedLOC = file.getTotalAddedLOC();
-
-            //MAX LOC added
-            maxAdded = file.getMaxAddedLOC();
-
-            //AVG LOC added
-            avgAdded = file.getAvgAddedLOC();
-
-            //churn
-            churn = file.getTotalChurn();
-
-            //MAX churn
-            maxChurn = file.getMaxChurn();
-
-            //AVG churn
-            avgChurn = file.getAvgChurn();
-
-            //ChgSetSize
-            chgSetSize = file.getTotalChgSetSize();
+        String report = "Dataset created with " + dataList.size() + " rows";
+        LOGGER.log(Level.INFO, report);
+    }
 
-            //MAX chgSet
-            maxChgSet = file.getMaxChgSetSize();
+    // dataset csv files written row by row, headers included
+    public static DatasetWriter openDatasetWriter(String projectName, boolean withComments, boolean withoutComments) throws IOException {
+        DatasetWriter writer = new DatasetWriter();
+        try {
+            if(withComments) {
+                addDatasetSink(writer, getDatasetPath(projectName, true), COLUMNS_COMM);
+                writer.addSink(new ColumnarDataset.Writer(getBinaryDatasetPath(projectName, true), COLUMNS_COMM));
+            }
+            if(withoutComments) {
+                addDatasetSink(writer, getDatasetPath(projectName, false), COLUMNS);
+                writer.addSink(new ColumnarDataset.Writer(getBinaryDatasetPath(projectName, false), COLUMNS));
+            }
+        }catch(IOException e) {
+            writer.close();
+            throw e;
+        }
+        return writer;
+    }
 
-            //AVG chgSet
-            avgChgSet = file.getAvgChgSetSize();
+    private static void addDatasetSink(DatasetWriter writer, String path, DatasetWriter.Column[] columns) throws IOException {
+        CsvWriter sink = new CsvWriter(path);
+        writer.addSink(sink, columns);
+        sink.writeRow(DatasetWriter.header(columns));
+    }
 
-            //age
-            age = file.getAge();
+    public static DatasetWriter.Column[] getDatasetColumns(boolean addComments) {
+        return (addComments ? COLUMNS_COMM : COLUMNS).clone();
+    }
 
-            //weighted age
-            weightedAge = file.getWeightedAge();
+    public static String getDatasetHeader(boolean addComments) {
+        return convertToCSV(DatasetWriter.header(addComments ? COLUMNS_COMM : COLUMNS));
+    }
 
-            //n fix
-            nFix = file.getNFix();
+    // partition rows keep the comments percentage, the other dataset drops it on assembly
+    public static void writePartition(File partition, List<JavaFile> dataList) throws IOException {
+        try (DatasetWriter writer = new DatasetWriter()) {
+            writer.addSink(new CsvWriter(partition.getPath()), COLUMNS_COMM);
+            writer.write(dataList);
+        }
+    }
 
-            //buggy
-            if (file.isBuggy()) {
-                buggy = "Yes";
-            } else {
-                buggy = "No";
-            }
+    // fields after the file name are numbers or Yes/No, so they are located from the end of the row
+    private static int commaFromEnd(String row, int n) {
+        int index = row.length();
+        for (int i = 0; i < n; i++)
+            index = row.lastIndexOf(',', index - 1);
+        return index;
+    }
 
-            if(addComments)
-                dataToConvert.add(new String [] {Integer.toString(releaseIndex), fileName, Integer.toString(size), Float.toString(commentsPercentage), Long.toString(touchedLOC), Integer.toString(commitCount), Integer.toString(authorCount), Integer.toString(addedLOC), maxAdded.toString(), Double.toString(avgAdded), churn.toString(), maxChurn.toString(), Double.toString(avgChurn), chgSetSize.toString(), maxChgSet.toString(), Double.toString(avgChgSet), Long.toString(age), Long.toString(weightedAge), Integer.toString(nFix), buggy});
-            else
-                dataToConvert.add(new String [] {Integer.toString(releaseIndex), fileName, Integer.toString(size), Long.toString(touchedLOC), Integer.toString(commitCount), Integer.toString(authorCount), Integer.toString(addedLOC), maxAdded.toString(), Double.toString(avgAdded), churn.toString(), maxChurn.toString(), Double.toString(avgChurn), chgSetSize.toString(), maxChgSet.toString(), Double.toString(avgChgSet), Long.toString(age), Long.toString(weightedAge), Integer.toString(nFix), buggy});
-        }
+    public static String getRowFileName(String row) {
+        String fileName = row.substring(row.indexOf(',') + 1, commaFromEnd(row, COLUMNS_COMM.length - 2));
+        if (fileName.length() > 1 && fileName.startsWith("\"") && fileName.endsWith("\""))
+            fileName = fileName.substring(1, fileName.length() - 1).replace("\"\"", "\"");
+        return fileName;
+    }
 
-        try {
-            toCsv(datasetFileName, dataToConvert);
+    // NFix and Buggy replaced with the labels of the file
+    public static String relabelRow(String row, JavaFile file) {
+        return row.substring(0, commaFromEnd(row, 2)) + "," + file.getNFix() + "," + (file.isBuggy() ? "Yes" : "No");
+    }
 
-        }catch(IOException e) {
-            e.printStackTrace();
-        }
+    public static String removeCommentsColumn(String row) {
+        int start = commaFromEnd(row, COLUMNS_COMM.length - 3);
+        int end = commaFromEnd(row, COLUMNS_COMM.length - 4);
+        return row.substring(0, start) + row.substring(end);
     }
 
     public static boolean datasetExists(String projectName, boolean addComments) {
@@ -212,6 +174,26 @@ public class FileManager {
         return filePath.exists();
     }
 
+    public static void deleteDataset(String projectName, boolean addComments) {
+        for (String path : new String[] {getDatasetPath(projectName, addComments), getBinaryDatasetPath(projectName, addComments)}) {
+            File filePath = new File(path);
+            if(filePath.exists() && !filePath.delete()) {
+                String report = "Unable to delete " + filePath.getPath();
+                LOGGER.log(Level.WARNING, report);
+            }
+        }
+    }
+
+    // columnar copy of the csv dataset, readable one release at a time
+    public static String getBinaryDatasetPath(String projectName, boolean addComments) {
+        String path = getDatasetPath(projectName, addComments);
+        return path.substring(0, path.length() - FILE_EXT.length()) + ColumnarDataset.FILE_EXT;
+    }
+
+    public static String getPartitionsPath(String projectName) {
+        return DATASET_DIR + File.separator + projectName + "-partitions";
+    }
+
     public static String getDatasetPath(String projectName, boolean addComments){
         String fullPath;
         if(addComments){
@@ -247,16 +229,89 @@ public class FileManager {
         }
     }
 
-    public static boolean evaluationExists(String projectName, boolean addComments) {
-        String fullPath;
-        if(addComments){
-            fullPath = OUTPUT_DIR + File.separator + projectName + COMM_NAME + EVAL_NAME + FILE_EXT;
-        }else{
-            fullPath = OUTPUT_DIR + File.separator + projectName +  EVAL_NAME + FILE_EXT;
+    // operating points of each trained model over a grid of thresholds, cost per instance at the given costs
+    public static void generateCurvesCsv(String projectName, List<List<WekaData>> resultData, boolean addComments, double costFalsePositive, double costFalseNegative) {
+        List<String[]> dataToPrint = new ArrayList<>();
+        dataToPrint.add(CURVE_COLUMNS);
+
+        for(List<WekaData> stepData:resultData){
+            for(WekaData data:stepData) {
+                Predictions predictions = data.getPredictions();
+                if(predictions == null)
+                    continue;
+                for(int t = 0; t <= SWEEP_STEPS; t++) {
+                    double threshold = (double) t / SWEEP_STEPS;
+                    Predictions.Point point = predictions.atThreshold(threshold);
+                    dataToPrint.add(new String[] {data.getDatasetName(), String.valueOf(data.getTrainingRelease()), data.getClassifier(), data.getBalancing(), data.getFeatureSelection(), String.valueOf(threshold), String.valueOf(point.getTruePositive()), String.valueOf(point.getFalsePositive()), String.valueOf(point.getTrueNegative()), String.valueOf(point.getFalseNegative()), String.valueOf(point.getPrecision()), String.valueOf(point.getRecall()), String.valueOf(point.getKappa()), String.valueOf(point.getCost(costFalsePositive, costFalseNegative))});
+                }
+            }
+        }
+        try {
+            toCsv(getEvaluationPath(projectName, addComments, CURVE_NAME), dataToPrint);
+        }catch(IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String getEvaluationPath(String projectName, boolean addComments, String name) {
+        if(addComments)
+            return OUTPUT_DIR + File.separator + projectName + COMM_NAME + name + FILE_EXT;
+        return OUTPUT_DIR + File.separator + projectName + name + FILE_EXT;
+    }
+
+    public static void deleteEvaluation(String projectName, boolean addComments) {
+        for (String name : new String[] {EVAL_NAME, CURVE_NAME}) {
+            File filePath = new File(getEvaluationPath(projectName, addComments, name));
+            if(filePath.exists() && !filePath.delete()) {
+                String report = "Unable to delete " + filePath.getPath();
+                LOGGER.log(Level.WARNING, report);
+            }
         }
+    }
 
-        File filePath = new File(fullPath);
-        return filePath.exists();
+    // p values stored by the other projects, used for proportion cold start
+    public static List<Double> loadProportions(String projectName) {
+        List<Double> values = new ArrayList<>();
+        for (String[] line : readProportionLines()) {
+            if (!line[0].equals(projectName))
+                values.add(Double.parseDouble(line[1]));
+        }
+        return values;
+    }
+
+    public static void saveProportion(String projectName, double p) {
+        List<String[]> dataLines = new ArrayList<>();
+        dataLines.add(PROPORTION_COLUMNS);
+        for (String[] line : readProportionLines()) {
+            if (!line[0].equals(projectName))
+                dataLines.add(line);
+        }
+        dataLines.add(new String[] {projectName, Double.toString(p)});
+
+        try (PrintWriter pw = new PrintWriter(new File(PROPORTION_PATH))) {
+            dataLines.stream().map(FileManager::convertToCSV).forEach(pw::println);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static List<String[]> readProportionLines() {
+        List<String[]> lines = new ArrayList<>();
+        File file = new File(PROPORTION_PATH);
+        if (!file.isFile())
+            return lines;
+
+        try {
+            List<String> rows = Files.readAllLines(file.toPath());
+            // skip header
+            for (String row : rows.subList(1, rows.size())) {
+                if (!row.isEmpty())
+                    lines.add(row.split(","));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return lines;
     }
 
 }
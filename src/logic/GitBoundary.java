@@ -22,11 +22,14 @@ public class GitBoundary {
     private static final String DATE_FORMAT = "--date=iso";
     private static final String DATE = "--pretty=format:%cd";
     private static final String FILE_EXT = ".java";
+    private static final String LAST_RELEASE = "master";
     private static final String ALL_OPT = "--all";
     private static final String NO_MERGE_OPT = "--no-merges";
     private static final String COMMIT_FORMAT = "--pretty=format:%H---%s---%an---%cd---";
     private final String projectName;
     private final File workingCopy;
+    // commit creation dates are looked up from, independent of the checked out release
+    private String creationRef;
 
 
 
@@ -74,6 +77,9 @@ public class GitBoundary {
 
         if(isRelease)
             process = Runtime.getRuntime().exec(new String[] {"git", "log", name, "-1", DATE ,DATE_FORMAT }, null, this.workingCopy);
+        else if(this.creationRef != null)
+            // from the pinned ref, the checked out release may predate the file
+            process = Runtime.getRuntime().exec(new String[] {"git", "log", this.creationRef, "--diff-filter=A", DATE ,DATE_FORMAT, "--",name }, null, this.workingCopy);
         else
             process = Runtime.getRuntime().exec(new String[] {"git", "log", "--diff-filter=A", DATE ,DATE_FORMAT, "--",name }, null, this.workingCopy);
         BufferedReader reader = new BufferedReader (new InputStreamReader (process.getInputStream()));
@@ -209,13 +215,35 @@ public class GitBoundary {
         return dataList;
     }
 
+    // default branch of the remote, the current commit when the clone has none
+    public void pinCreationRef() throws IOException, InterruptedException {
+        String ref = this.readLine("git", "rev-parse", "--abbrev-ref", "origin/HEAD");
+        if (ref == null || ref.isEmpty() || ref.equals("origin/HEAD"))
+            ref = this.readLine("git", "rev-parse", "HEAD");
+        this.creationRef = ref;
+
+        String report = "Creation dates resolved from " + ref;
+        LOGGER.log(Level.INFO, report);
+    }
+
+    // first output line of a git command, null when it prints nothing
+    private String readLine(String... command) throws IOException, InterruptedException {
+        Process process = Runtime.getRuntime().exec(command, null, this.workingCopy);
+        String line;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            line = reader.readLine();
+        }
+        process.waitFor();
+        return line != null ? line.trim() : null;
+    }
+
     public void changeRelease(String releaseName) throws IOException, InterruptedException {
         Process process = Runtime.getRuntime().exec(new String[] {"git","checkout",releaseName}, null, this.workingCopy);
         process.waitFor();
     }
 
     public void restoreLastRelease() throws IOException, InterruptedException {
-        this.changeRelease("master");
+        this.changeRelease(LAST_RELEASE);
     }
 
     public List<Integer> getSizes(String releaseName, String filePath) throws IOException, InterruptedException, JSONException {
@@ -0,0 +1,176 @@
+package logic;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// disk backed cache of GET responses keyed by normalized url
+public class HttpResponseCache {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpResponseCache.class.getName());
+    private static final String BODY_EXT = ".body";
+    private static final String META_EXT = ".meta";
+    private static final String META_URL = "url";
+    private static final String META_FETCHED = "fetched";
+    private static final String META_ETAG = "etag";
+    private static final String META_LAST_MODIFIED = "lastModified";
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final File cacheDir;
+    private final boolean offline;
+
+    public HttpResponseCache(String cacheDir, boolean offline) {
+        this.cacheDir = new File(cacheDir);
+        this.offline = offline;
+        if (!this.cacheDir.isDirectory() && !this.cacheDir.mkdirs())
+            LOGGER.log(Level.WARNING, "Cache dir not created");
+    }
+
+    // body of the url, from disk if younger than ttl or still valid on the server
+    public InputStream open(String url, Duration ttl) throws IOException {
+        String normalized = normalize(url);
+        String key = hash(normalized);
+        File body = new File(this.cacheDir, key + BODY_EXT);
+        File meta = new File(this.cacheDir, key + META_EXT);
+        Properties properties = readMeta(meta);
+        boolean cached = properties != null && body.isFile();
+
+        if (this.offline) {
+            if (!cached)
+                throw new FileNotFoundException("Offline mode and no cached response for " + normalized);
+            return new FileInputStream(body);
+        }
+
+        if (cached && !isExpired(properties, ttl))
+            return new FileInputStream(body);
+
+        try {
+            this.fetch(normalized, body, meta, cached ? properties : null);
+        } catch (IOException e) {
+            if (!cached)
+                throw e;
+            // serve stale data rather than failing
+            String report = "Serving stale response for " + normalized + " (" + e.getMessage() + ")";
+            LOGGER.log(Level.WARNING, report);
+        }
+        return new FileInputStream(body);
+    }
+
+    private void fetch(String url, File body, File meta, Properties previous) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+
+        // conditional revalidation of a stale entry
+        if (previous != null) {
+            if (previous.getProperty(META_ETAG) != null)
+                headers.put("If-None-Match", previous.getProperty(META_ETAG));
+            if (previous.getProperty(META_LAST_MODIFIED) != null)
+                headers.put("If-Modified-Since", previous.getProperty(META_LAST_MODIFIED));
+        }
+
+        try (HttpTransport.Response response = HttpTransport.getShared().get(url, headers)) {
+            if (previous != null && response.getStatus() == HTTP_NOT_MODIFIED) {
+                previous.setProperty(META_FETCHED, Long.toString(System.currentTimeMillis()));
+                writeMeta(meta, previous);
+                return;
+            }
+
+            // download to a temporary file then move it in place
+            File tmp = File.createTempFile(body.getName(), null, this.cacheDir);
+            try {
+                Files.copy(response.getBody(), tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(tmp.toPath());
+                throw e;
+            }
+            Files.move(tmp.toPath(), body.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Properties properties = new Properties();
+            properties.setProperty(META_URL, url);
+            properties.setProperty(META_FETCHED, Long.toString(System.currentTimeMillis()));
+            if (response.getHeader("ETag") != null)
+                properties.setProperty(META_ETAG, response.getHeader("ETag"));
+            if (response.getHeader("Last-Modified") != null)
+                properties.setProperty(META_LAST_MODIFIED, response.getHeader("Last-Modified"));
+            writeMeta(meta, properties);
+        }
+    }
+
+    private static boolean isExpired(Properties properties, Duration ttl) {
+        long fetched = Long.parseLong(properties.getProperty(META_FETCHED, "0"));
+        return System.currentTimeMillis() - fetched > ttl.toMillis();
+    }
+
+    private static Properties readMeta(File meta) throws IOException {
+        if (!meta.isFile())
+            return null;
+        Properties properties = new Properties();
+        try (InputStream is = new FileInputStream(meta)) {
+            properties.load(is);
+        }
+        return properties;
+    }
+
+    private static void writeMeta(File meta, Properties properties) throws IOException {
+        File tmp = new File(meta.getPath() + ".tmp");
+        try (OutputStream os = new FileOutputStream(tmp)) {
+            properties.store(os, null);
+        }
+        Files.move(tmp.toPath(), meta.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // lower case scheme and host, no default port, sorted query parameters
+    public static String normalize(String url) throws IOException {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        String scheme = uri.getScheme().toLowerCase();
+        builder.append(scheme).append("://").append(uri.getHost().toLowerCase());
+        int port = uri.getPort();
+        if (port != -1 && !(port == 443 && "https".equals(scheme)) && !(port == 80 && "http".equals(scheme)))
+            builder.append(':').append(port);
+        builder.append(uri.getRawPath());
+
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            String[] params = query.split("&");
+            Arrays.sort(params);
+            builder.append('?').append(String.join("&", params));
+        }
+        return builder.toString();
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest)
+                builder.append(String.format("%02x", b));
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
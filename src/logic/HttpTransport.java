@@ -0,0 +1,142 @@
+package logic;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+// shared HTTP client: keep-alive connections, HTTP/2 when available, gzip, timeouts
+public class HttpTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpTransport.class.getName());
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(120);
+    private static final double NANO_TO_MILLI = 1e6;
+    private static final HttpTransport SHARED = new HttpTransport(CONNECT_TIMEOUT, REQUEST_TIMEOUT);
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+
+    private final AtomicLong requests;
+    private final AtomicLong latencyNanos;
+    private final AtomicLong maxLatencyNanos;
+    private final AtomicLong wireBytes;
+
+    public static class Response implements Closeable {
+        private final int status;
+        private final HttpResponse<InputStream> response;
+        private final InputStream body;
+
+        private Response(HttpResponse<InputStream> response, InputStream body) {
+            this.status = response.statusCode();
+            this.response = response;
+            this.body = body;
+        }
+
+        public int getStatus() { return this.status; }
+
+        public String getHeader(String name) { return this.response.headers().firstValue(name).orElse(null); }
+
+        public InputStream getBody() { return this.body; }
+
+        @Override
+        public void close() throws IOException { this.body.close(); }
+    }
+
+    // counts bytes as received on the wire, before decompression
+    private class CountingInputStream extends FilterInputStream {
+
+        private CountingInputStream(InputStream in) { super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1)
+                wireBytes.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0)
+                wireBytes.addAndGet(read);
+            return read;
+        }
+    }
+
+    public HttpTransport(Duration connectTimeout, Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.requests = new AtomicLong(0);
+        this.latencyNanos = new AtomicLong(0);
+        this.maxLatencyNanos = new AtomicLong(0);
+        this.wireBytes = new AtomicLong(0);
+    }
+
+    public static HttpTransport getShared() { return SHARED; }
+
+    public InputStream get(String url) throws IOException {
+        return this.get(url, Collections.emptyMap()).getBody();
+    }
+
+    // status >= 400 is reported as IOException, 304 is returned to the caller
+    public Response get(String url, Map<String, String> headers) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(this.requestTimeout)
+                .header("Accept-Encoding", "gzip")
+                .GET();
+        for (Map.Entry<String, String> header : headers.entrySet())
+            builder.header(header.getKey(), header.getValue());
+
+        HttpResponse<InputStream> response;
+        long start = System.nanoTime();
+        try {
+            response = this.client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request interrupted: " + url);
+        }
+        long latency = System.nanoTime() - start;
+        this.requests.incrementAndGet();
+        this.latencyNanos.addAndGet(latency);
+        this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+
+        InputStream body = new CountingInputStream(response.body());
+        if (response.statusCode() >= 400) {
+            body.close();
+            throw new IOException("HTTP " + response.statusCode() + " for " + url);
+        }
+        if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse("")))
+            body = new GZIPInputStream(body);
+
+        return new Response(response, body);
+    }
+
+    public void logMetrics() {
+        long count = this.requests.get();
+        if (count == 0)
+            return;
+        String report = "HTTP requests: " + count +
+                "\n-Avg latency: " + this.latencyNanos.get() / NANO_TO_MILLI / count + "ms" +
+                "\n-Max latency: " + this.maxLatencyNanos.get() / NANO_TO_MILLI + "ms" +
+                "\n-Bytes received: " + this.wireBytes.get();
+        LOGGER.log(Level.INFO, report);
+    }
+}
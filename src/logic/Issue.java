@@ -128,7 +128,13 @@ public class Issue {
 
     public List<String> getTouchedFiles() { return this.touchedFiles; }
 
+    public void setTouchedFiles(List<String> touchedFiles) { this.touchedFiles = touchedFiles; }
+
     public String getId() {
         return id;
     }
+
+    public String getKey() {
+        return key;
+    }
 }
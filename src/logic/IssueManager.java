@@ -1,44 +1,113 @@
 package logic;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 
 public class IssueManager {
 
     private static final Logger LOGGER = Logger.getLogger(IssueManager.class.getName());
-    private static final String ISSUE_FIELDS = "fields";
     private static final double PERC = 0.03;
+    private static final int ISSUE_WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final ProportionEngine.Type PROPORTION = ProportionEngine.Type.MOVING_WINDOW;
+    private static final String UNIT_ISSUES = "issues";
     private String projectName;
     private ReleaseManager releaseManager;
     private GitBoundary gitBoundary;
 
     private List<Issue> issueList;
+    private Future<List<JiraIssueData>> prefetchedIssues;
+    private final Checkpoint checkpoint;
 
     public IssueManager(String projectName, ReleaseManager releaseManager, GitBoundary gitBoundary) {
         this.projectName = projectName;
         this.releaseManager = releaseManager;
         this.gitBoundary = gitBoundary;
         this.issueList = new ArrayList<>();
+        this.checkpoint = new Checkpoint(projectName, Checkpoint.MINING);
     }
 
     public void setupIssues() throws JSONException, IOException, InterruptedException {
+        resolveIssues();
+        //set buggy to classes
+        setBuggy();
+    }
+
+    // issues with final versions, needs only the release list
+    public void resolveIssues() throws JSONException, IOException, InterruptedException {
+        List<Issue> restored = this.checkpoint.load(UNIT_ISSUES, this::readIssues);
+        if(restored != null) {
+            this.issueList = restored;
+            return;
+        }
+
         // retrieve issues
         retrieveIssues();
         // add injected version where needed with proportion
         proportion();
         //filter after proportion
         filterAfterProportion();
-        //set buggy to classes
-        setBuggy();
+        this.checkpoint.save(UNIT_ISSUES, this::writeIssues);
+    }
+
+    // versions are restored by jira name, releases must be set up before
+    private List<Issue> readIssues(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Issue> issues = new ArrayList<>(size);
+        for(int k = 0; k < size; k++) {
+            String id = in.readUTF();
+            String key = in.readUTF();
+            Release injectedVersion = this.releaseManager.getReleaseByJiraName(in.readUTF());
+            Release fixVersion = this.releaseManager.getReleaseByJiraName(in.readUTF());
+            Release openingVersion = this.releaseManager.getReleaseByJiraName(in.readUTF());
+            // releases changed since the snapshot
+            if(injectedVersion == null || fixVersion == null || openingVersion == null)
+                return null;
+
+            Issue issue = new Issue(id, key, injectedVersion, fixVersion, openingVersion);
+            int touched = in.readInt();
+            List<String> touchedFiles = new ArrayList<>(touched);
+            for(int t = 0; t < touched; t++)
+                touchedFiles.add(in.readUTF());
+            issue.setTouchedFiles(touchedFiles);
+            issues.add(issue);
+        }
+        return issues;
+    }
+
+    private void writeIssues(DataOutputStream out) throws IOException {
+        out.writeInt(this.issueList.size());
+        for(Issue issue: this.issueList) {
+            out.writeUTF(issue.getId());
+            out.writeUTF(issue.getKey());
+            out.writeUTF(issue.getInjectedVersion().getJiraName());
+            out.writeUTF(issue.getFixVersion().getJiraName());
+            out.writeUTF(issue.getOpeningVersion().getJiraName());
+            out.writeInt(issue.getTouchedFiles().size());
+            for(String fileName: issue.getTouchedFiles())
+                out.writeUTF(fileName);
+        }
+    }
+
+    // labeller to tag releases one by one while they are streamed
+    public BuggyLabeller newLabeller() {
+        return new BuggyLabeller(this.issueList, this.releaseManager.getReleaseSubset().size());
     }
 
     private void filterAfterProportion(){
@@ -94,12 +163,10 @@ public class IssueManager {
 
     }
 
-    private List<Release> extractList(int size, JSONArray ja) throws JSONException {
+    private List<Release> extractList(List<String> names) {
         List<Release> releaseList = new ArrayList<>();
-        String relName;
         Release rel;
-        for(int k=0; k < size; k++) {
-            relName = ja.getJSONObject(k).getString("name");
+        for(String relName: names) {
             rel = releaseManager.getReleaseByJiraName(relName);
             if(rel != null)
                 releaseList.add(rel);
@@ -107,61 +174,157 @@ public class IssueManager {
         return releaseList;
     }
 
-    private Release retrieveInjectedVersion(JSONArray ja) throws JSONException {
-        int size;
+    private Release retrieveInjectedVersion(List<String> names) {
         Release injectedVersion;
         List<Release> releaseList;
 
-        size = ja.length();
-
-        if(size == 0) {
+        if(names.isEmpty()) {
             injectedVersion = null;
         }else {
-            releaseList = this.extractList(size, ja);
+            releaseList = this.extractList(names);
             injectedVersion = Release.getMinRelease(releaseList);
         }
         return injectedVersion;
     }
 
-    private Release retrieveFixedVersion(JSONArray ja) throws JSONException {
-        int size;
+    private Release retrieveFixedVersion(List<String> names) {
         Release fixVersion;
         List<Release> releaseList;
 
-        size = ja.length();
-
-
-        if(size == 0) {
+        if(names.isEmpty()) {
             fixVersion = null;
         }else {
-            releaseList = this.extractList(size, ja);
+            releaseList = this.extractList(names);
             fixVersion = Release.getMaxRelease(releaseList);
         }
         return fixVersion;
     }
 
 
-    private void retrieveIssues() throws JSONException, IOException, InterruptedException {
-        LOGGER.log(Level.INFO, "Retrieving issues and related data");
+    // start downloading issue pages in background while releases are mined
+    public void prefetchIssues() {
+        // resolved issues restored from checkpoint, nothing to download
+        if(this.checkpoint.exists(UNIT_ISSUES))
+            return;
 
-        int i = 0;
-        int j = 0;
-        int total = 1;
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jira-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prefetchedIssues = executor.submit(this::syncIssues);
+        executor.shutdown();
+    }
 
-        int totalCount = 0;
+    private List<JiraIssuePage> fetchIssuePages(LocalDate updatedSince) throws IOException, JSONException, InterruptedException {
+        // pages after the first are requested concurrently
+        JiraPageFetcher fetcher = new JiraPageFetcher(startIndex -> JiraBoundary.getIssue(this.projectName, startIndex, updatedSince), JiraBoundary.PAGE_SIZE);
+        List<JiraIssuePage> pages = fetcher.fetchAll();
 
-        String key;
-        String id;
+        String report = "Issue pages downloaded: " + pages.size();
+        LOGGER.log(Level.INFO, report);
+        return pages;
+    }
+
+    // bring the local issue store up to date and return its content
+    private List<JiraIssueData> syncIssues() throws IOException, JSONException, InterruptedException {
+        IssueStore store = IssueStore.load(this.projectName);
+        long syncTime = System.currentTimeMillis();
+
+        if(JiraBoundary.isOffline() && !store.isEmpty()) {
+            LOGGER.log(Level.INFO, "Offline mode using issue store");
+        }else if(store.needsFullSync(syncTime)) {
+            LOGGER.log(Level.INFO, "Full issue sync");
+            store.replaceAll(this.fetchIssuePages(null), syncTime);
+            store.save();
+        }else {
+            // one day of overlap, merging the same issue twice is harmless
+            LocalDate updatedSince = Instant.ofEpochMilli(store.getLastSync()).atZone(ZoneOffset.UTC).toLocalDate().minusDays(1);
+            String report = "Incremental issue sync from " + updatedSince;
+            LOGGER.log(Level.INFO, report);
+            store.merge(this.fetchIssuePages(updatedSince), syncTime);
+            store.save();
+        }
 
-        String openingDate;
+        return new ArrayList<>(store.getIssues());
+    }
+
+    private List<JiraIssueData> retrieveIssueData() throws IOException, JSONException, InterruptedException {
+        // no prefetch requested download now
+        if(this.prefetchedIssues == null)
+            return this.syncIssues();
+
+        try {
+            return this.prefetchedIssues.get();
+        }catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException)
+                throw (IOException) cause;
+            if(cause instanceof JSONException)
+                throw (JSONException) cause;
+            if(cause instanceof InterruptedException)
+                throw (InterruptedException) cause;
+            throw new IllegalStateException(cause);
+        }finally {
+            this.prefetchedIssues = null;
+        }
+    }
 
+    // virtual threads on runtimes that have them, platform threads otherwise
+    private static ExecutorService newWorkerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }catch(ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(ISSUE_WORKERS);
+        }
+    }
+
+    // versions, commits and touched files of a single issue
+    private Issue resolveIssue(JiraIssueData issueData, Semaphore permits) throws IOException, InterruptedException {
         Release injectedVersion;
         Release fixVersion;
         Release openingVersion;
-
         Issue issue;
         List<Commit> commitList;
 
+        injectedVersion = this.retrieveInjectedVersion(issueData.getVersions());
+        fixVersion = this.retrieveFixedVersion(issueData.getFixVersions());
+        openingVersion = this.releaseManager.getReleaseFromDate(issueData.getCreated());
+
+        // generate issue and related commmits
+        issue = new Issue(issueData.getId(), issueData.getKey(), injectedVersion, fixVersion, openingVersion);
+
+        // bound the git processes running at the same time
+        permits.acquire();
+        try {
+            commitList = this.gitBoundary.getIssueCommit(issue);
+            issue.setCommitList(commitList, this.gitBoundary);
+        }finally {
+            permits.release();
+        }
+        return issue;
+    }
+
+    private static Issue waitIssue(Future<Issue> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        }catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException)
+                throw (IOException) cause;
+            if(cause instanceof InterruptedException)
+                throw (InterruptedException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void retrieveIssues() throws JSONException, IOException, InterruptedException {
+        LOGGER.log(Level.INFO, "Retrieving issues and related data");
+
+        int totalCount = 0;
+
+        Issue issue;
+
         int nullVersionCount = 0;
         int inconsistentCount = 0;
         int emptyCount = 0;
@@ -169,28 +332,17 @@ public class IssueManager {
 
         String report;
 
-        do {
-            j = i + 1000;
-            JSONObject json = JiraBoundary.getIssue(this.projectName, i);
-            JSONArray issuesJson = json.getJSONArray("issues");
-            total = json.getInt("total");
+        // resolve issues concurrently, results are merged in issue order
+        List<Future<Issue>> resolved = new ArrayList<>();
+        Semaphore permits = new Semaphore(ISSUE_WORKERS);
+        ExecutorService executor = newWorkerExecutor();
 
-            for(; i < total && i < j; i++) {
-                //i%1000 max per page
-                id = issuesJson.getJSONObject(i%1000).getString("id");
-                key = issuesJson.getJSONObject(i%1000).getString("key");
+        try {
+            for(JiraIssueData issueData: this.retrieveIssueData())
+                resolved.add(executor.submit(() -> this.resolveIssue(issueData, permits)));
 
-                openingDate = issuesJson.getJSONObject(i%1000).getJSONObject(ISSUE_FIELDS).getString("created").split("T")[0];
-
-
-                injectedVersion = this.retrieveInjectedVersion(issuesJson.getJSONObject(i%1000).getJSONObject(ISSUE_FIELDS).getJSONArray("versions"));
-                fixVersion = this.retrieveFixedVersion(issuesJson.getJSONObject(i%1000).getJSONObject(ISSUE_FIELDS).getJSONArray("fixVersions"));
-                openingVersion = this.releaseManager.getReleaseFromDate(openingDate);
-
-                // generate issue and related commmits
-                issue = new Issue(id, key, injectedVersion, fixVersion, openingVersion);
-                commitList = this.gitBoundary.getIssueCommit(issue);
-                issue.setCommitList(commitList, this.gitBoundary);
+            for(Future<Issue> future: resolved) {
+                issue = waitIssue(future);
 
                 switch(issue.validateIssue()){
                     //skip issue because opening or fix versions are null
@@ -216,7 +368,9 @@ public class IssueManager {
                 }
                 totalCount ++;
             }
-        }while(i < total);
+        }finally {
+            executor.shutdownNow();
+        }
 
         report= "Data retrieved";
         LOGGER.log(Level.INFO, report);
@@ -233,6 +387,7 @@ public class IssueManager {
 
         String report;
         double p;
+        double coldStartP;
         Release injectedVersion;
         Release openingVersion;
         Release fixVersion;
@@ -240,21 +395,32 @@ public class IssueManager {
 
         List<Release> releaseList;
         List<Release> unreleasedList;
-        List<Issue> subList = new ArrayList<>();
+        List<Double> otherProjects;
+        ProportionEngine.Strategy strategy;
 
         releaseList = this.releaseManager.getReleases();
         unreleasedList = this.releaseManager.getUnreleased();
 
+        // p used before any issue is processed
+        otherProjects = FileManager.loadProportions(this.projectName);
+        if(PROPORTION == ProportionEngine.Type.COLD_START)
+            coldStartP = ProportionEngine.coldStartP(Collections.emptyList(), otherProjects);
+        else
+            coldStartP = ProportionEngine.coldStartP(this.issueList, otherProjects);
+
+        // store p of this project for the cold start of the others
+        if(this.issueList.stream().anyMatch(i -> i.getInjectedVersion() != null))
+            FileManager.saveProportion(this.projectName, ProportionEngine.coldStartP(this.issueList, Collections.emptyList()));
+
+        strategy = ProportionEngine.create(PROPORTION, PERC, coldStartP);
+
         for (Issue issue : this.issueList) {
             injectedVersion = issue.getInjectedVersion();
             openingVersion = issue.getOpeningVersion();
             fixVersion = issue.getFixVersion();
 
             if (injectedVersion == null) {
-                report = "Applying proportion";
-                LOGGER.log(Level.INFO, report);
-
-                p = movingWindow(subList);
+                p = strategy.getP();
 
                 ivIndex = (int) Math.round(fixVersion.getReleaseIndex() - (fixVersion.getReleaseIndex() - openingVersion.getReleaseIndex()) * p);
 
@@ -273,92 +439,20 @@ public class IssueManager {
                 issue.setInjectedVersion(injectedVersion);
 
                 // report
-                report = "Issue: " + issue.getIndex() + " id: " + issue.getId() +
+                report = "Applying proportion\nIssue: " + issue.getIndex() + " id: " + issue.getId() +
                         "\n-p value: " + p +
                         "\n-Fix version: " + fixVersion.getGitName() + " " + fixVersion.getReleaseIndex() +
                         "\n-Opening version: " + openingVersion.getGitName() + " " + openingVersion.getReleaseIndex() +
                         "\n-Injected version: " + injectedVersion.getGitName() + " " + injectedVersion.getReleaseIndex();
                 LOGGER.log(Level.INFO, report);
             }
-            subList.add(issue);
-        }
-    }
-
-
-    private double movingWindow(List<Issue> list) {
-        double p = 1;
-        Release fixVersion;
-        Release openingVersion;
-        Release injectedVersion;
-        double sum = 0;
-
-        int count = 0;
-
-        List<Issue> subList;
-
-
-        if(list.isEmpty()) {
-            //p for first issue if IV is null
-            //average of all issues with IV not null
-            subList = this.issueList.stream().filter(i -> i.getInjectedVersion() != null).collect(Collectors.toList());
-        }else {
-            //calculated as moving window
-            int size;
-            //calculate p on last PERC (1%) issues
-            size = (int)Math.ceil(PERC * list.size());
-            int fromIndex = list.size()-size;
-            subList = list.subList(fromIndex, list.size());
-            String report = "p calculated over " + size + " previous issues";
-            LOGGER.log(Level.INFO, report);
-        }
-
-        //calculate p and its average
-        for (Issue issue : subList) {
-            fixVersion = issue.getFixVersion();
-            openingVersion = issue.getOpeningVersion();
-            injectedVersion = issue.getInjectedVersion();
-
-            if (fixVersion.getReleaseIndex() != openingVersion.getReleaseIndex()) {
-                sum = sum + ((double) (fixVersion.getReleaseIndex() - injectedVersion.getReleaseIndex()) / (double) (fixVersion.getReleaseIndex() - openingVersion.getReleaseIndex()));
-            } else {
-                sum = sum + 1;
-            }
-            count++;
+            strategy.add(issue);
         }
-        //control division by 0
-        if( count != 0)
-            p = sum/count;
-
-        return p;
     }
 
     private void setBuggy() {
-        List<Release> sublist = this.releaseManager.getReleaseSubset();
-        Release injectedVersion;
-        Release fixVersion;
-        Release lastRelease = this.releaseManager.getLastReleaseConsidered();
-        Release release;
-        JavaFile fileTouched;
-        int i;
-
         LOGGER.log(Level.INFO, "Tagging classes as buggy");
-
-        for(Issue issue: this.issueList){
-            injectedVersion = issue.getInjectedVersion();
-            fixVersion = issue.getFixVersion();
-            //fromInjected included to fixVersion excluded
-            //Warning to size of considered releases
-            for(i=injectedVersion.getReleaseIndex(); i < fixVersion.getReleaseIndex() && i <= lastRelease.getReleaseIndex(); i++) {
-                //release indexes start from 1
-                release = sublist.get(i-1);
-                //set buggy all files  touched by issues' commits
-                for(String fileName:issue.getTouchedFiles()) {
-                    fileTouched = release.getClassByName(fileName);
-                    if(fileTouched != null)
-                        fileTouched.setBuggy();
-                }
-            }
-        }
+        BuggyLabeller.label(this.releaseManager.getReleaseSubset(), this.issueList);
         LOGGER.log(Level.INFO, "Phase completed");
     }
 
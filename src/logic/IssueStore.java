@@ -0,0 +1,140 @@
+package logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// local copy of the parsed Jira issues of a project indexed by issue key
+public class IssueStore {
+
+    private static final Logger LOGGER = Logger.getLogger(IssueStore.class.getName());
+    private static final String STORE_DIR = "cache" + File.separator + "issues";
+    private static final String FILE_EXT = ".bin";
+    private static final int MAGIC = 0x4A495353;
+    private static final int FORMAT_VERSION = 1;
+    // issues no longer matching the query are only dropped by a full sync
+    private static final Duration FULL_SYNC_INTERVAL = Duration.ofDays(30);
+
+    private final File file;
+    private final Map<String, JiraIssueData> issues;
+    private long lastSync;
+    private long lastFullSync;
+
+    private IssueStore(File file) {
+        this.file = file;
+        this.issues = new LinkedHashMap<>();
+        this.lastSync = 0;
+        this.lastFullSync = 0;
+    }
+
+    public static IssueStore load(String projectName) throws IOException {
+        File dir = new File(STORE_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs())
+            LOGGER.log(Level.WARNING, "Issue store dir not created");
+
+        IssueStore store = new IssueStore(new File(dir, projectName + FILE_EXT));
+        if (!store.file.isFile())
+            return store;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(store.file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LOGGER.log(Level.WARNING, "Issue store format not recognized, starting from scratch");
+                return store;
+            }
+            store.lastSync = in.readLong();
+            store.lastFullSync = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                JiraIssueData issue = new JiraIssueData(in.readUTF(), in.readUTF(), in.readUTF(), readNames(in), readNames(in));
+                store.issues.put(issue.getKey(), issue);
+            }
+        }
+
+        String report = "Issue store loaded: " + store.issues.size() + " issues";
+        LOGGER.log(Level.INFO, report);
+        return store;
+    }
+
+    private static List<String> readNames(DataInputStream in) throws IOException {
+        int size = in.readUnsignedShort();
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            names.add(in.readUTF());
+        return names;
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeShort(names.size());
+        for (String name : names)
+            out.writeUTF(name);
+    }
+
+    public void save() throws IOException {
+        File tmp = new File(this.file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(this.lastSync);
+            out.writeLong(this.lastFullSync);
+            out.writeInt(this.issues.size());
+            for (JiraIssueData issue : this.issues.values()) {
+                out.writeUTF(issue.getId());
+                out.writeUTF(issue.getKey());
+                out.writeUTF(issue.getCreated());
+                writeNames(out, issue.getVersions());
+                writeNames(out, issue.getFixVersions());
+            }
+        }
+        Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public boolean isEmpty() { return this.issues.isEmpty(); }
+
+    public boolean needsFullSync(long now) {
+        return this.issues.isEmpty() || now - this.lastFullSync > FULL_SYNC_INTERVAL.toMillis();
+    }
+
+    public long getLastSync() { return this.lastSync; }
+
+    // replace the whole content with a full download
+    public void replaceAll(List<JiraIssuePage> pages, long syncTime) {
+        this.issues.clear();
+        this.merge(pages, syncTime);
+        this.lastFullSync = syncTime;
+    }
+
+    // add new issues and overwrite the updated ones
+    public void merge(List<JiraIssuePage> pages, long syncTime) {
+        for (JiraIssuePage page : pages) {
+            for (JiraIssueData issue : page.getIssues()) {
+                // the tolerant decoder leaves absent fields null, such issues cannot be resolved
+                if (issue.getId() == null || issue.getKey() == null || issue.getCreated() == null) {
+                    String report = "Incomplete Jira issue " + issue.getKey() + ", skipped";
+                    LOGGER.log(Level.WARNING, report);
+                    continue;
+                }
+                this.issues.put(issue.getKey(), issue);
+            }
+        }
+        this.lastSync = syncTime;
+    }
+
+    public JiraIssueData get(String key) { return this.issues.get(key); }
+
+    public Collection<JiraIssueData> getIssues() { return this.issues.values(); }
+}
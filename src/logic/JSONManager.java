@@ -5,15 +5,21 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.*;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 
 public class JSONManager {
 
+    private static final int BUFFER_SIZE = 8192;
+
+    @FunctionalInterface
+    public interface StreamDecoder<T> {
+        T decode(JSONStreamReader reader) throws IOException, JSONException;
+    }
+
     private JSONManager() {}
 
     public static JSONArray readJsonArrayFromUrl(String url ) throws IOException, JSONException {
-        InputStream is = new URL(url).openStream();
+        InputStream is = HttpTransport.getShared().get(url);
         try (BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));) {
             String jsonText = readAll(rd);
             return new JSONArray(jsonText);
@@ -24,15 +30,16 @@ public class JSONManager {
 
     private static String readAll(Reader rd) throws IOException {
         StringBuilder sb = new StringBuilder();
-        int cp;
-        while ((cp = rd.read()) != -1) {
-            sb.append((char) cp);
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = rd.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
         }
         return sb.toString();
     }
 
     public static JSONObject readJsonObjectFromUrl(String url) throws IOException, JSONException {
-        InputStream is = new URL(url).openStream();
+        InputStream is = HttpTransport.getShared().get(url);
         try (BufferedReader rd = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));) {
             String jsonText = readAll(rd);
             return new JSONObject(jsonText);
@@ -40,4 +47,13 @@ public class JSONManager {
             is.close();
         }
     }
+
+    // decode the body while it is read without building the whole document
+    public static <T> T decodeFromStream(InputStream is, StreamDecoder<T> decoder) throws IOException, JSONException {
+        try (JSONStreamReader reader = new JSONStreamReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            return decoder.decode(reader);
+        } finally {
+            is.close();
+        }
+    }
 }
@@ -0,0 +1,204 @@
+package logic;
+
+import org.json.JSONException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// pull tokenizer over a Reader: only the values asked for are materialized,
+// everything else is skipped char by char through a fixed size buffer
+public class JSONStreamReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final StringBuilder builder;
+    private int pos;
+    private int limit;
+
+    public JSONStreamReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.builder = new StringBuilder();
+        this.pos = 0;
+        this.limit = 0;
+    }
+
+    private boolean fill() throws IOException {
+        this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+        this.pos = 0;
+        if (this.limit < 0) {
+            this.limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private int peekChar() throws IOException {
+        if (this.pos >= this.limit && !this.fill())
+            return -1;
+        return this.buffer[this.pos];
+    }
+
+    private char readChar() throws IOException, JSONException {
+        if (this.pos >= this.limit && !this.fill())
+            throw new JSONException("Unexpected end of input");
+        return this.buffer[this.pos++];
+    }
+
+    // next char that is not a white space, not consumed
+    private int peekToken() throws IOException {
+        int c;
+        while ((c = this.peekChar()) != -1 && Character.isWhitespace(c))
+            this.pos++;
+        return c;
+    }
+
+    private void expect(char expected) throws IOException, JSONException {
+        int c = this.peekToken();
+        if (c != expected)
+            throw new JSONException("Expected '" + expected + "' but found '" + (c == -1 ? "EOF" : String.valueOf((char) c)) + "'");
+        this.pos++;
+    }
+
+    public void beginObject() throws IOException, JSONException { this.expect('{'); }
+
+    public void endObject() throws IOException, JSONException { this.expect('}'); }
+
+    public void beginArray() throws IOException, JSONException { this.expect('['); }
+
+    public void endArray() throws IOException, JSONException { this.expect(']'); }
+
+    // true if the current object or array has another element
+    public boolean hasNext() throws IOException {
+        int c = this.peekToken();
+        if (c == ',') {
+            this.pos++;
+            c = this.peekToken();
+        }
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public boolean isNull() throws IOException {
+        return this.peekToken() == 'n';
+    }
+
+    public String nextName() throws IOException, JSONException {
+        String name = this.nextString();
+        this.expect(':');
+        return name;
+    }
+
+    // string value, null for a JSON null
+    public String nextString() throws IOException, JSONException {
+        if (this.isNull()) {
+            this.readLiteral();
+            return null;
+        }
+        this.expect('"');
+        this.builder.setLength(0);
+        this.readString(true);
+        return this.builder.toString();
+    }
+
+    public boolean nextBoolean() throws IOException, JSONException {
+        String literal = this.readLiteral();
+        if ("true".equals(literal))
+            return true;
+        if ("false".equals(literal))
+            return false;
+        throw new JSONException("Expected boolean but found " + literal);
+    }
+
+    public int nextInt() throws IOException, JSONException {
+        String literal = this.readLiteral();
+        try {
+            return Integer.parseInt(literal);
+        } catch (NumberFormatException e) {
+            throw new JSONException("Expected int but found " + literal);
+        }
+    }
+
+    public void skipValue() throws IOException, JSONException {
+        int c = this.peekToken();
+        if (c == '{') {
+            this.beginObject();
+            while (this.hasNext()) {
+                this.skipString();
+                this.expect(':');
+                this.skipValue();
+            }
+            this.endObject();
+        } else if (c == '[') {
+            this.beginArray();
+            while (this.hasNext())
+                this.skipValue();
+            this.endArray();
+        } else if (c == '"') {
+            this.skipString();
+        } else {
+            this.readLiteral();
+        }
+    }
+
+    private void skipString() throws IOException, JSONException {
+        this.expect('"');
+        this.readString(false);
+    }
+
+    // read up to the closing quote, appending to builder only when kept
+    private void readString(boolean keep) throws IOException, JSONException {
+        char c;
+        while ((c = this.readChar()) != '"') {
+            if (c == '\\')
+                c = this.readEscape();
+            if (keep)
+                this.builder.append(c);
+        }
+    }
+
+    private char readEscape() throws IOException, JSONException {
+        char c = this.readChar();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++)
+                    code = (code << 4) + Character.digit(this.readChar(), 16);
+                return (char) code;
+            default:
+                // \" \\ \/
+                return c;
+        }
+    }
+
+    // numbers, true, false and null
+    private String readLiteral() throws IOException, JSONException {
+        this.peekToken();
+        this.builder.setLength(0);
+        int c;
+        while ((c = this.peekChar()) != -1 && c != ',' && c != '}' && c != ']' && c != ':' && !Character.isWhitespace(c)) {
+            this.builder.append((char) c);
+            this.pos++;
+        }
+        if (this.builder.length() == 0)
+            throw new JSONException("Expected value");
+        return this.builder.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
@@ -102,8 +102,12 @@ public class JavaFile {
     }
 
     public void setBuggy() {
+        this.setBuggy(1);
+    }
+
+    public void setBuggy(int fixCount) {
         this.buggy = true;
-        this.nFix++;
+        this.nFix += fixCount;
     }
 
     public int getReleaseIndex() {
@@ -114,6 +118,14 @@ public class JavaFile {
         return size;
     }
 
+    public int getComments() {
+        return comments;
+    }
+
+    public LocalDateTime getCreationDate() {
+        return this.creationDate;
+    }
+
     public float getCommentsPercentage() {
         return commentsPercentage;
     }
@@ -1,27 +1,184 @@
 package logic;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
+import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JiraBoundary {
 
+    public static final int PAGE_SIZE = 1000;
+    private static final String NAME = "name";
+    private static final String CACHE_DIR = "cache" + File.separator + "jira";
+    // versions change only when a release is published
+    private static final Duration VERSIONS_TTL = Duration.ofDays(1);
+    // closed and fixed bugs rarely change
+    private static final Duration ISSUES_TTL = Duration.ofDays(1);
+    // -Djira.offline=true replays cached responses without network
+    private static final boolean OFFLINE = Boolean.getBoolean("jira.offline");
+    private static final HttpResponseCache CACHE = new HttpResponseCache(CACHE_DIR, OFFLINE);
+
     private JiraBoundary() {}
 
-    public static JSONArray getReleases(String projectName) throws IOException, JSONException {
+    public static List<JiraVersionData> getReleases(String projectName) throws IOException, JSONException {
         String url = "https://issues.apache.org/jira/rest/api/2/project/" + projectName.toUpperCase() + "/versions";
-        return JSONManager.readJsonArrayFromUrl(url);
+        return JSONManager.decodeFromStream(CACHE.open(url, VERSIONS_TTL), JiraBoundary::decodeVersions);
+    }
+
+    public static JiraIssuePage getIssue(String projectName, Integer startIndex) throws IOException, JSONException {
+        return getIssue(projectName, startIndex, null);
     }
 
-    public static JSONObject getIssue(String projectName, Integer startIndex) throws IOException, JSONException {
+    // updatedSince not null restricts the search to issues updated from that day on
+    public static JiraIssuePage getIssue(String projectName, Integer startIndex, LocalDate updatedSince) throws IOException, JSONException {
+
+        String updatedFilter = "";
+        if (updatedSince != null)
+            updatedFilter = "AND%22updated%22%3E=%22" + updatedSince.format(DateTimeFormatter.ISO_LOCAL_DATE) + "%22";
 
         String url = "https://issues.apache.org/jira/rest/api/2/search?jql=project=%22"
                 + projectName.toUpperCase() +"%22AND%22type%22=%22bug%22AND(%22status%22"+
-                "=%22closed%22OR%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22&"+
-                "fields=key,fixVersions,versions,created&startAt=" + startIndex.toString() +"&maxResults=1000";
-        return JSONManager.readJsonObjectFromUrl(url);
+                "=%22closed%22OR%22status%22=%22resolved%22)AND%22resolution%22=%22fixed%22" + updatedFilter + "&"+
+                "fields=key,fixVersions,versions,created&startAt=" + startIndex.toString() +"&maxResults=" + PAGE_SIZE;
+        return JSONManager.decodeFromStream(CACHE.open(url, ISSUES_TTL), JiraBoundary::decodeIssuePage);
+
+    }
+
+    public static boolean isOffline() { return OFFLINE; }
+
+    public static List<JiraVersionData> decodeVersions(JSONStreamReader reader) throws IOException, JSONException {
+        List<JiraVersionData> versions = new ArrayList<>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String id = "";
+            String name = "";
+            boolean released = false;
+            String releaseDate = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        id = reader.nextString();
+                        break;
+                    case NAME:
+                        name = reader.nextString();
+                        break;
+                    case "released":
+                        released = reader.nextBoolean();
+                        break;
+                    case "releaseDate":
+                        releaseDate = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            versions.add(new JiraVersionData(id, name, released, releaseDate));
+        }
+        reader.endArray();
+
+        return versions;
+    }
+
+    public static JiraIssuePage decodeIssuePage(JSONStreamReader reader) throws IOException, JSONException {
+        int total = 0;
+        List<JiraIssueData> issues = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "total":
+                    total = reader.nextInt();
+                    break;
+                case "issues":
+                    reader.beginArray();
+                    while (reader.hasNext())
+                        issues.add(decodeIssue(reader));
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new JiraIssuePage(total, issues);
+    }
+
+    private static JiraIssueData decodeIssue(JSONStreamReader reader) throws IOException, JSONException {
+        String id = null;
+        String key = null;
+        String created = null;
+        List<String> versions = new ArrayList<>();
+        List<String> fixVersions = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "key":
+                    key = reader.nextString();
+                    break;
+                case "fields":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "created":
+                                // only date needed
+                                created = reader.nextString().split("T")[0];
+                                break;
+                            case "versions":
+                                versions = decodeVersionNames(reader);
+                                break;
+                            case "fixVersions":
+                                fixVersions = decodeVersionNames(reader);
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new JiraIssueData(id, key, created, versions, fixVersions);
+    }
+
+    private static List<String> decodeVersionNames(JSONStreamReader reader) throws IOException, JSONException {
+        List<String> names = new ArrayList<>();
+
+        if (reader.isNull()) {
+            reader.skipValue();
+            return names;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (NAME.equals(reader.nextName()))
+                    names.add(reader.nextString());
+                else
+                    reader.skipValue();
+            }
+            reader.endObject();
+        }
+        reader.endArray();
 
+        return names;
     }
 }
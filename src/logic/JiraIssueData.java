@@ -0,0 +1,31 @@
+package logic;
+
+import java.util.List;
+
+public class JiraIssueData {
+
+    private final String id;
+    private final String key;
+    //only date part of the created field
+    private final String created;
+    private final List<String> versions;
+    private final List<String> fixVersions;
+
+    public JiraIssueData(String id, String key, String created, List<String> versions, List<String> fixVersions) {
+        this.id = id;
+        this.key = key;
+        this.created = created;
+        this.versions = versions;
+        this.fixVersions = fixVersions;
+    }
+
+    public String getId() { return this.id; }
+
+    public String getKey() { return this.key; }
+
+    public String getCreated() { return this.created; }
+
+    public List<String> getVersions() { return this.versions; }
+
+    public List<String> getFixVersions() { return this.fixVersions; }
+}
@@ -0,0 +1,18 @@
+package logic;
+
+import java.util.List;
+
+public class JiraIssuePage {
+
+    private final int total;
+    private final List<JiraIssueData> issues;
+
+    public JiraIssuePage(int total, List<JiraIssueData> issues) {
+        this.total = total;
+        this.issues = issues;
+    }
+
+    public int getTotal() { return this.total; }
+
+    public List<JiraIssueData> getIssues() { return this.issues; }
+}
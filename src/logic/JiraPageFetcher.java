@@ -0,0 +1,129 @@
+package logic;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class JiraPageFetcher {
+
+    private static final Logger LOGGER = Logger.getLogger(JiraPageFetcher.class.getName());
+    private static final int INITIAL_LIMIT = 2;
+    private static final int MAX_LIMIT = 8;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MS = 500;
+
+    private final PageSource source;
+    private final int pageSize;
+    private final AdaptiveLimit limit;
+
+    @FunctionalInterface
+    public interface PageSource {
+        JiraIssuePage getPage(int startIndex) throws IOException, JSONException;
+    }
+
+    // additive increase on success, multiplicative decrease on errors (429 included)
+    private static class AdaptiveLimit {
+        private final int max;
+        private double limit;
+        private int inFlight;
+
+        private AdaptiveLimit(int initial, int max) {
+            this.limit = initial;
+            this.max = max;
+            this.inFlight = 0;
+        }
+
+        private synchronized void acquire() throws InterruptedException {
+            while (this.inFlight >= (int) this.limit)
+                this.wait();
+            this.inFlight++;
+        }
+
+        private synchronized void release(boolean success) {
+            this.inFlight--;
+            if (success)
+                this.limit = Math.min(this.max, this.limit + 1 / this.limit);
+            else
+                this.limit = Math.max(1, this.limit / 2);
+            this.notifyAll();
+        }
+
+        private synchronized int current() { return (int) this.limit; }
+    }
+
+    public JiraPageFetcher(PageSource source, int pageSize) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.limit = new AdaptiveLimit(INITIAL_LIMIT, MAX_LIMIT);
+    }
+
+    // return all pages ordered by start index
+    public List<JiraIssuePage> fetchAll() throws IOException, JSONException, InterruptedException {
+        List<JiraIssuePage> pages = new ArrayList<>();
+
+        // first page gives the total
+        JiraIssuePage first = this.fetchWithRetry(0);
+        pages.add(first);
+        int total = first.getTotal();
+
+        if (total <= this.pageSize)
+            return pages;
+
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_LIMIT);
+        List<Future<JiraIssuePage>> futures = new ArrayList<>();
+        try {
+            for (int startIndex = this.pageSize; startIndex < total; startIndex += this.pageSize) {
+                final int start = startIndex;
+                futures.add(executor.submit(() -> this.fetchWithRetry(start)));
+            }
+            for (Future<JiraIssuePage> future : futures)
+                pages.add(future.get());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof JSONException)
+                throw (JSONException) cause;
+            if (cause instanceof InterruptedException)
+                throw (InterruptedException) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String report = "Fetched " + pages.size() + " pages, final concurrency limit " + this.limit.current();
+        LOGGER.log(Level.INFO, report);
+        return pages;
+    }
+
+    private JiraIssuePage fetchWithRetry(int startIndex) throws IOException, JSONException, InterruptedException {
+        int attempt = 0;
+        while (true) {
+            this.limit.acquire();
+            boolean success = false;
+            try {
+                JiraIssuePage page = this.source.getPage(startIndex);
+                success = true;
+                return page;
+            } catch (IOException e) {
+                attempt++;
+                if (attempt >= MAX_ATTEMPTS)
+                    throw e;
+                String report = "Page at " + startIndex + " failed (" + e.getMessage() + "), retry " + attempt + "/" + (MAX_ATTEMPTS - 1);
+                LOGGER.log(Level.WARNING, report);
+            } finally {
+                this.limit.release(success);
+            }
+            // exponential backoff outside the limiter
+            Thread.sleep(BASE_BACKOFF_MS << (attempt - 1));
+        }
+    }
+}
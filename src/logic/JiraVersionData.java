@@ -0,0 +1,27 @@
+package logic;
+
+public class JiraVersionData {
+
+    private final String id;
+    private final String name;
+    private final boolean released;
+    //null if Jira has no release date
+    private final String releaseDate;
+
+    public JiraVersionData(String id, String name, boolean released, String releaseDate) {
+        this.id = id;
+        this.name = name;
+        this.released = released;
+        this.releaseDate = releaseDate;
+    }
+
+    public String getId() { return this.id; }
+
+    public String getName() { return this.name; }
+
+    public boolean isReleased() { return this.released; }
+
+    public boolean isDated() { return this.releaseDate != null; }
+
+    public String getReleaseDate() { return this.releaseDate; }
+}
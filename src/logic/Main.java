@@ -1,8 +1,10 @@
 package logic;
 
 import org.json.JSONException;
+import weka.core.Instances;
 import weka.core.WekaException;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -14,8 +16,88 @@ import java.util.logging.Logger;
 public class Main {
 
     public static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    // -Ddataset.streaming=true analyses every release with bounded memory
+    private static final boolean STREAMING = Boolean.getBoolean("dataset.streaming");
+    private static final boolean INCREMENTAL = Boolean.getBoolean("dataset.incremental");
+
+    private static void streamingGeneration(String projName, ReleaseManager rm, IssueManager im, boolean withComments, boolean withoutComments) throws JSONException, IOException, InterruptedException {
+        boolean completed = false;
+
+        rm.setFullHistory(true);
+        im.prefetchIssues();
+        rm.setupReleases();
+
+        // issues only need the release list
+        im.resolveIssues();
+        HttpTransport.getShared().logMetrics();
+
+        BuggyLabeller labeller = im.newLabeller();
+
+        try {
+            // both variants are written in the same pass
+            try (DatasetWriter writer = FileManager.openDatasetWriter(projName, withComments, withoutComments)) {
+                // label and write each release as soon as it is mined
+                rm.streamReleases(release -> {
+                    labeller.labelNext(release);
+                    writer.write(release.getJavaFiles());
+                });
+            }
+            completed = true;
+            // mined data is in the datasets now
+            new Checkpoint(projName, Checkpoint.MINING).clear();
+        } finally {
+            // partial datasets would be taken as complete on the next run
+            if(!completed) {
+                if(withComments)
+                    FileManager.deleteDataset(projName, true);
+                if(withoutComments)
+                    FileManager.deleteDataset(projName, false);
+            }
+        }
+    }
+
+    // only new releases are mined, stored partitions are relabelled with the current issues
+    private static void incrementalGeneration(String gitUrl, String projName) throws JSONException, IOException, InterruptedException {
+        GitBoundary gb = new GitBoundary(gitUrl);
+        ReleaseManager rm = new ReleaseManager(projName, gb, new ReleaseNameAdapter(0, "release-"));
+        IssueManager im = new IssueManager(projName, rm, gb);
+
+        im.prefetchIssues();
+        rm.setupReleases();
+        im.resolveIssues();
+        HttpTransport.getShared().logMetrics();
+
+        BuggyLabeller labeller = im.newLabeller();
+        DatasetPartitions partitions = DatasetPartitions.load(projName, rm.getReleaseSubset());
+
+        rm.streamReleases(release -> {
+            if(partitions.isStored(release)) {
+                release.setJavaFiles(partitions.readFiles(release));
+                labeller.labelNext(release);
+                partitions.relabel(release);
+            }else {
+                labeller.labelNext(release);
+                partitions.store(release);
+            }
+        }, partitions::isStored);
+
+        boolean changed = partitions.hasChanged();
+        partitions.save();
+        new Checkpoint(projName, Checkpoint.MINING).clear();
+
+        if(changed || !FileManager.datasetExists(projName, true) || !FileManager.datasetExists(projName, false)) {
+            partitions.assemble(true);
+            partitions.assemble(false);
+            // results of the previous dataset are stale
+            FileManager.deleteEvaluation(projName, true);
+            FileManager.deleteEvaluation(projName, false);
+        }else {
+            LOGGER.log(Level.INFO, "Dataset partitions unchanged");
+        }
+    }
 
-    private static void datasetGenerationPhase(String gitUrl, String projName) throws JSONException, IOException, InterruptedException {
+    // mined files when generated in this run, null otherwise
+    private static List<JavaFile> datasetGenerationPhase(String gitUrl, String projName) throws JSONException, IOException, InterruptedException {
 
         boolean commentDatasetExists;
         boolean datasetExists;
@@ -24,9 +106,15 @@ public class Main {
         ReleaseManager rm;
         ReleaseNameAdapter rna;
         IssueManager im;
-        List<JavaFile> dataList;
+        List<JavaFile> dataList = null;
 
 
+        if(INCREMENTAL) {
+            LOGGER.log(Level.INFO, "Updating datasets from release partitions");
+            incrementalGeneration(gitUrl, projName);
+            return null;
+        }
+
         commentDatasetExists = FileManager.datasetExists(projName, true);
         datasetExists = FileManager.datasetExists(projName, false);
 
@@ -38,70 +126,82 @@ public class Main {
             rm = new ReleaseManager(projName, gb, rna);
             im = new IssueManager(projName, rm, gb);
 
+            if(STREAMING) {
+                LOGGER.log(Level.INFO, "Generating datasets in streaming mode");
+                streamingGeneration(projName, rm, im, !commentDatasetExists, !datasetExists);
+                return null;
+            }
+
+            // download issues while releases are mined
+            im.prefetchIssues();
+
             rm.setupReleaseManager();
 
             im.setupIssues();
 
+            HttpTransport.getShared().logMetrics();
+
             dataList = rm.getDataList();
 
-            if(!commentDatasetExists) {
+            if(!commentDatasetExists)
                 LOGGER.log(Level.INFO, "Generating dataset with comment percentage");
-                FileManager.generateDatasetCsv(projName, dataList, true);
-
-            }
-
-            if(!datasetExists) {
+            if(!datasetExists)
                 LOGGER.log(Level.INFO, "Generating dataset without comment percentage");
-                FileManager.generateDatasetCsv(projName, dataList, false);
-            }
-        }
 
-    }
+            // missing variants written in one pass
+            FileManager.generateDatasetCsv(projName, dataList, !commentDatasetExists, !datasetExists);
 
-    private static void evaluationPhase(String projectName) throws WekaException {
+            // mined data is in the datasets now
+            new Checkpoint(projName, Checkpoint.MINING).clear();
 
-        boolean commentEvaluationExists;
-        boolean evaluationExists;
+            // an existing dataset may come from an older run, evaluation then reads both from disk
+            if(commentDatasetExists || datasetExists)
+                dataList = null;
+        }
 
-        commentEvaluationExists = FileManager.evaluationExists(projectName, true);
-        evaluationExists = FileManager.evaluationExists(projectName, false);
+        return dataList;
+    }
 
-        if(commentEvaluationExists && evaluationExists){
-            LOGGER.log(Level.INFO, "Evaluation results already exist skipping generation phase" );
-        }else {
-            String datasetPath;
-            List<List<WekaData>> returnData;
-            List<WekaManager.FeatureSelection> featureSelectionList;
+    // dataset rebuilt from the mined files when they are still in memory, loaded from disk otherwise
+    private static List<List<WekaData>> walkForward(String projectName, List<JavaFile> dataList, boolean addComments, List<WekaManager.ClassifierType> classifierTypeList, List<WekaManager.FeatureSelection> featureSelectionList, List<WekaManager.Sampling> samplingList, List<WekaManager.CostSensitive> costSensitiveList) throws WekaException {
+        String datasetPath = FileManager.getDatasetPath(projectName, addComments);
+        if(dataList == null)
+            return WekaManager.walkForward(projectName, datasetPath, classifierTypeList, featureSelectionList, samplingList, costSensitiveList);
 
-            List<WekaManager.ClassifierType> classifierTypeList = Arrays.asList(WekaManager.ClassifierType.RANDOM_FOREST, WekaManager.ClassifierType.NAIVE_BAYES, WekaManager.ClassifierType.IBK);
-            List<WekaManager.Sampling> samplingList = Arrays.asList(WekaManager.Sampling.NO_SAMPLING, WekaManager.Sampling.OVERSAMPLING, WekaManager.Sampling.UNDERSAMPLING, WekaManager.Sampling.SMOTE);
-            List<WekaManager.CostSensitive> costSensitiveList = Arrays.asList(WekaManager.CostSensitive.NO_COST_SENSITIVE, WekaManager.CostSensitive.SENSITIVE_THRESHOLD, WekaManager.CostSensitive.SENSITIVE_LEARNING);
+        String datasetName = new File(datasetPath).getName();
+        Instances dataset = WekaManager.buildInstances(datasetName, dataList, FileManager.getDatasetColumns(addComments));
+        return WekaManager.walkForward(projectName, datasetName, dataset, classifierTypeList, featureSelectionList, samplingList, costSensitiveList);
+    }
 
-            if(!commentEvaluationExists) {
-                // with comments
-                LOGGER.log(Level.INFO, "Generating evaluation results with comment percentage");
+    // every run evaluates the whole grid, cells of earlier runs on the same dataset come from the evaluation cache
+    private static void evaluationPhase(String projectName, List<JavaFile> dataList) throws WekaException {
 
-                featureSelectionList = Collections.singletonList(WekaManager.FeatureSelection.NO_FEATURE_SELECTION);
-                datasetPath = FileManager.getDatasetPath(projectName, true);
+        List<List<WekaData>> returnData;
+        List<WekaManager.FeatureSelection> featureSelectionList;
 
-                returnData = WekaManager.walkForward(projectName, datasetPath,  classifierTypeList, featureSelectionList, samplingList, costSensitiveList);
+        List<WekaManager.ClassifierType> classifierTypeList = Arrays.asList(WekaManager.ClassifierType.RANDOM_FOREST, WekaManager.ClassifierType.NAIVE_BAYES, WekaManager.ClassifierType.IBK);
+        List<WekaManager.Sampling> samplingList = Arrays.asList(WekaManager.Sampling.NO_SAMPLING, WekaManager.Sampling.OVERSAMPLING, WekaManager.Sampling.UNDERSAMPLING, WekaManager.Sampling.SMOTE);
+        List<WekaManager.CostSensitive> costSensitiveList = Arrays.asList(WekaManager.CostSensitive.NO_COST_SENSITIVE, WekaManager.CostSensitive.SENSITIVE_THRESHOLD, WekaManager.CostSensitive.SENSITIVE_LEARNING);
 
-                FileManager.generateFinalCsv(projectName, returnData, true);
+        // with comments
+        LOGGER.log(Level.INFO, "Generating evaluation results with comment percentage");
 
-            }
+        featureSelectionList = Collections.singletonList(WekaManager.FeatureSelection.NO_FEATURE_SELECTION);
+        returnData = walkForward(projectName, dataList, true, classifierTypeList, featureSelectionList, samplingList, costSensitiveList);
 
-            if(!evaluationExists) {
-                // without comments
-                LOGGER.log(Level.INFO, "Generating evaluation results without comment percentage");
+        FileManager.deleteEvaluation(projectName, true);
+        FileManager.generateFinalCsv(projectName, returnData, true);
+        FileManager.generateCurvesCsv(projectName, returnData, true, WekaManager.getCostFalsePositive(), WekaManager.getCostFalseNegative());
 
-                featureSelectionList = Arrays.asList(WekaManager.FeatureSelection.BEST_FIRST, WekaManager.FeatureSelection.NO_FEATURE_SELECTION);
-                datasetPath = FileManager.getDatasetPath(projectName, false);
+        // without comments
+        LOGGER.log(Level.INFO, "Generating evaluation results without comment percentage");
 
-                returnData = WekaManager.walkForward(projectName, datasetPath,  classifierTypeList, featureSelectionList, samplingList, costSensitiveList);
+        featureSelectionList = Arrays.asList(WekaManager.FeatureSelection.BEST_FIRST, WekaManager.FeatureSelection.NO_FEATURE_SELECTION);
+        returnData = walkForward(projectName, dataList, false, classifierTypeList, featureSelectionList, samplingList, costSensitiveList);
 
-                FileManager.generateFinalCsv(projectName, returnData, false);
-            }
-        }
+        FileManager.deleteEvaluation(projectName, false);
+        FileManager.generateFinalCsv(projectName, returnData, false);
+        FileManager.generateCurvesCsv(projectName, returnData, false, WekaManager.getCostFalsePositive(), WekaManager.getCostFalseNegative());
     }
 
     public static void main(String[] args) throws Exception {
@@ -121,10 +221,10 @@ public class Main {
             projectName = splitted[splitted.length -1];
 
             // dataset generation phase
-            datasetGenerationPhase(gitUrl, projectName);
+            List<JavaFile> dataList = datasetGenerationPhase(gitUrl, projectName);
 
             // evaluation phase
-            evaluationPhase(projectName);
+            evaluationPhase(projectName, dataList);
         }
     }
 }
\ No newline at end of file
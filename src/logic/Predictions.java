@@ -0,0 +1,160 @@
+package logic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.WekaException;
+
+// class distributions of a trained model on the testing set, any operating point is computed from them without the model
+public class Predictions {
+
+    // Yes is the first class value
+    private static final int YES = 0;
+
+    // distribution of row k is {yes[k], no[k]}
+    private final double[] yes;
+    private final double[] no;
+    private final boolean[] buggy;
+
+    private Predictions(int size) {
+        this.yes = new double[size];
+        this.no = new double[size];
+        this.buggy = new boolean[size];
+    }
+
+    public static Predictions of(Classifier classifier, Instances testingSet) throws WekaException {
+        Predictions predictions = new Predictions(testingSet.numInstances());
+        try {
+            for (int k = 0; k < testingSet.numInstances(); k++) {
+                double[] distribution = classifier.distributionForInstance(testingSet.instance(k));
+                predictions.yes[k] = distribution[YES];
+                predictions.no[k] = distribution[1 - YES];
+                predictions.buggy[k] = (int) testingSet.instance(k).classValue() == YES;
+            }
+        } catch (Exception e) {
+            throw new WekaException(e);
+        }
+        return predictions;
+    }
+
+    public int size() {
+        return this.yes.length;
+    }
+
+    public double[] distribution(int k) {
+        double[] distribution = new double[2];
+        distribution[YES] = this.yes[k];
+        distribution[1 - YES] = this.no[k];
+        return distribution;
+    }
+
+    // minimum expected cost decision as CostSensitiveClassifier takes it: Utils.minIndex keeps the first
+    // of equal costs, so ties go to Yes, which keeps threshold cells identical to a CostSensitiveClassifier run
+    private boolean isYes(int k, double costFalsePositive, double costFalseNegative) {
+        return this.no[k] * costFalsePositive <= this.yes[k] * costFalseNegative;
+    }
+
+    // one hot distribution of the minimum expected cost class
+    public double[] decision(int k, double costFalsePositive, double costFalseNegative) {
+        double[] distribution = new double[2];
+        distribution[this.isYes(k, costFalsePositive, costFalseNegative) ? YES : 1 - YES] = 1.0;
+        return distribution;
+    }
+
+    // Yes when its probability reaches the threshold
+    public Point atThreshold(double threshold) {
+        return this.atCosts(threshold, 1 - threshold);
+    }
+
+    // minimum expected cost decision at the given costs, Yes on ties
+    public Point atCosts(double costFalsePositive, double costFalseNegative) {
+        int tp = 0;
+        int fp = 0;
+        int tn = 0;
+        int fn = 0;
+        for (int k = 0; k < this.size(); k++) {
+            boolean predicted = this.isYes(k, costFalsePositive, costFalseNegative);
+            if (predicted && this.buggy[k])
+                tp++;
+            else if (predicted)
+                fp++;
+            else if (this.buggy[k])
+                fn++;
+            else
+                tn++;
+        }
+        return new Point(tp, fp, tn, fn);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(this.size());
+        for (int k = 0; k < this.size(); k++) {
+            out.writeDouble(this.yes[k]);
+            out.writeDouble(this.no[k]);
+            out.writeBoolean(this.buggy[k]);
+        }
+    }
+
+    public static Predictions read(DataInput in) throws IOException {
+        Predictions predictions = new Predictions(in.readInt());
+        for (int k = 0; k < predictions.size(); k++) {
+            predictions.yes[k] = in.readDouble();
+            predictions.no[k] = in.readDouble();
+            predictions.buggy[k] = in.readBoolean();
+        }
+        return predictions;
+    }
+
+    // confusion matrix of Yes at one operating point, measures computed as weka Evaluation does
+    public static class Point {
+        private final int truePositive;
+        private final int falsePositive;
+        private final int trueNegative;
+        private final int falseNegative;
+
+        private Point(int truePositive, int falsePositive, int trueNegative, int falseNegative) {
+            this.truePositive = truePositive;
+            this.falsePositive = falsePositive;
+            this.trueNegative = trueNegative;
+            this.falseNegative = falseNegative;
+        }
+
+        public int getTruePositive() { return this.truePositive; }
+        public int getFalsePositive() { return this.falsePositive; }
+        public int getTrueNegative() { return this.trueNegative; }
+        public int getFalseNegative() { return this.falseNegative; }
+
+        private int total() {
+            return this.truePositive + this.falsePositive + this.trueNegative + this.falseNegative;
+        }
+
+        public double getPrecision() {
+            int predicted = this.truePositive + this.falsePositive;
+            return predicted == 0 ? 0 : (double) this.truePositive / predicted;
+        }
+
+        public double getRecall() {
+            int actual = this.truePositive + this.falseNegative;
+            return actual == 0 ? 0 : (double) this.truePositive / actual;
+        }
+
+        public double getKappa() {
+            double total = this.total();
+            if (total == 0)
+                return 1;
+            double agreement = (this.truePositive + this.trueNegative) / total;
+            double chance = ((double) (this.truePositive + this.falsePositive) * (this.truePositive + this.falseNegative)
+                    + (double) (this.falseNegative + this.trueNegative) * (this.falsePositive + this.trueNegative)) / (total * total);
+            return chance < 1 ? (agreement - chance) / (1 - chance) : 1;
+        }
+
+        // average cost per testing instance
+        public double getCost(double costFalsePositive, double costFalseNegative) {
+            int total = this.total();
+            return total == 0 ? 0 : (this.falsePositive * costFalsePositive + this.falseNegative * costFalseNegative) / total;
+        }
+    }
+}
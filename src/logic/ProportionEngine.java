@@ -0,0 +1,148 @@
+package logic;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ProportionEngine {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    public enum Type {
+        MOVING_WINDOW,
+        INCREMENTAL,
+        COLD_START
+    }
+
+    // p for the next issue in O(1), issues are added in processing order
+    public interface Strategy {
+        void add(Issue issue);
+        double getP();
+    }
+
+    private ProportionEngine() {}
+
+    public static Strategy create(Type type, double windowPerc, double coldStartP) {
+        Strategy strategy;
+        switch (type) {
+            case MOVING_WINDOW:
+                strategy = new MovingWindow(windowPerc, coldStartP);
+                break;
+            case INCREMENTAL:
+                strategy = new Incremental(coldStartP);
+                break;
+            case COLD_START:
+                strategy = new ColdStart(coldStartP);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid proportion strategy");
+        }
+        return strategy;
+    }
+
+    // (FV - IV) / (FV - OV), 1 when opening and fix version are the same
+    public static double issueProportion(Issue issue) {
+        int fixIndex = issue.getFixVersion().getReleaseIndex();
+        int openingIndex = issue.getOpeningVersion().getReleaseIndex();
+        int injectedIndex = issue.getInjectedVersion().getReleaseIndex();
+
+        if (fixIndex != openingIndex)
+            return (double) (fixIndex - injectedIndex) / (double) (fixIndex - openingIndex);
+        return 1;
+    }
+
+    // average p of the issues with injected version, else average of other projects, else 1
+    public static double coldStartP(List<Issue> issues, List<Double> otherProjects) {
+        double sum = 0;
+        int count = 0;
+        for (Issue issue : issues) {
+            if (issue.getInjectedVersion() != null) {
+                sum += issueProportion(issue);
+                count++;
+            }
+        }
+        if (count != 0)
+            return sum / count;
+
+        if (!otherProjects.isEmpty())
+            return otherProjects.stream().mapToDouble(Double::doubleValue).average().getAsDouble();
+
+        return 1;
+    }
+
+    // average over the last windowPerc of the issues seen so far
+    private static class MovingWindow implements Strategy {
+        private final double windowPerc;
+        private final double coldStartP;
+        // prefix[k] = sum of the p of the first k issues
+        private double[] prefix;
+        private int count;
+
+        private MovingWindow(double windowPerc, double coldStartP) {
+            this.windowPerc = windowPerc;
+            this.coldStartP = coldStartP;
+            this.prefix = new double[INITIAL_CAPACITY];
+            this.count = 0;
+        }
+
+        @Override
+        public void add(Issue issue) {
+            if (this.count + 1 == this.prefix.length)
+                this.prefix = Arrays.copyOf(this.prefix, this.prefix.length * 2);
+            this.prefix[this.count + 1] = this.prefix[this.count] + issueProportion(issue);
+            this.count++;
+        }
+
+        @Override
+        public double getP() {
+            if (this.count == 0)
+                return this.coldStartP;
+            int size = (int) Math.ceil(this.windowPerc * this.count);
+            return (this.prefix[this.count] - this.prefix[this.count - size]) / size;
+        }
+    }
+
+    // average over all the issues seen so far
+    private static class Incremental implements Strategy {
+        private final double coldStartP;
+        private double sum;
+        private int count;
+
+        private Incremental(double coldStartP) {
+            this.coldStartP = coldStartP;
+            this.sum = 0;
+            this.count = 0;
+        }
+
+        @Override
+        public void add(Issue issue) {
+            this.sum += issueProportion(issue);
+            this.count++;
+        }
+
+        @Override
+        public double getP() {
+            if (this.count == 0)
+                return this.coldStartP;
+            return this.sum / this.count;
+        }
+    }
+
+    // fixed p, e.g. from other projects
+    private static class ColdStart implements Strategy {
+        private final double coldStartP;
+
+        private ColdStart(double coldStartP) {
+            this.coldStartP = coldStartP;
+        }
+
+        @Override
+        public void add(Issue issue) {
+            // p does not depend on this project's issues
+        }
+
+        @Override
+        public double getP() {
+            return this.coldStartP;
+        }
+    }
+}
@@ -1,60 +1,147 @@
 package logic;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ReleaseManager {
 
     private static final Logger LOGGER = Logger.getLogger(ReleaseManager.class.getName());
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final String STAGE_CLASSES = "classes";
+    private static final String STAGE_SIZES = "sizes";
+    private static final String STAGE_COMMITS = "commits";
+    private static final String STAGE_DATA = "data";
+    private static final String STAGE_FILTER = "filter";
+    private static final String UNIT_RELEASES = "releases";
+    private static final String UNIT_CLASSES = "classes-";
+    private static final String UNIT_SIZES = "sizes-";
+    private static final String UNIT_COMMITS = "commits-";
     private final String projectName;
     private final GitBoundary gitBoundary;
     private final ReleaseNameAdapter nameAdapter;
     private List<Release> releases;
     private List<Release> unreleased;
+    private ReleaseTimeline timeline;
     //analysis only on a subset of releases
     private List<Release> releaseSubset;
+    private boolean fullHistory;
+    //creation date of each path, the same in every release
+    private final Map<String, LocalDateTime> creationDates;
+    private final Checkpoint checkpoint;
 
 
     public ReleaseManager(String projectName, GitBoundary gitBoundary, ReleaseNameAdapter nameAdapter) {
         this.projectName = projectName;
         this.gitBoundary = gitBoundary;
         this.nameAdapter = nameAdapter;
+        this.fullHistory = false;
+        this.creationDates = new ConcurrentHashMap<>();
+        this.checkpoint = new Checkpoint(projectName, Checkpoint.MINING);
+    }
+
+    @FunctionalInterface
+    public interface ReleaseConsumer {
+        void accept(Release release) throws IOException;
     }
 
     public void setupReleaseManager() throws JSONException, IOException, InterruptedException {
         // setup releases
+        this.setupReleases();
+        this.mineReleases();
+    }
+
+    public void setupReleases() throws JSONException, IOException, InterruptedException {
         this.retrieveReleases();
-        // setup java classes on each release
-        this.retrieveClasses();
-        // calculate sizes
-        this.retrieveJavaFileSize();
-        // retrieve commits for each release
-        this.retrieveReleaseCommit();
-        //calculate classes data
-        this.retrieveData();
-        this.filterJavaFiles();
-    }
-
-    private void filterJavaFiles() {
-
-        for(Release release : this.releaseSubset) {
-            List<JavaFile> newList = new ArrayList<>();
-            for(JavaFile java : release.getJavaFiles()){
-                if(!(java.getTouchedLOC() == 0 &&  java.getCommitCount() == 0 && java.getAvgChgSetSize() == 0 && java.getAvgChurn() == 0)){
-                    newList.add(java);
-                }
+    }
+
+    // analyse every release instead of the first half
+    public void setFullHistory(boolean fullHistory) { this.fullHistory = fullHistory; }
+
+    private void mineReleases() throws JSONException, IOException, InterruptedException {
+        // per release units run as soon as their inputs are ready
+        // sizes move the working copy, creation dates are read from a fixed ref
+        this.gitBoundary.pinCreationRef();
+        StageScheduler scheduler = new StageScheduler(PARALLELISM);
+        // sizes check out the shared working copy
+        scheduler.setSerial(STAGE_SIZES);
+
+        StageScheduler.Task lastSize = null;
+
+        for (int i = 0; i < this.releaseSubset.size(); i++) {
+            final int index = i;
+            Release release = this.releaseSubset.get(i);
+
+            // setup java classes on the release
+            StageScheduler.Task classes = scheduler.addTask(STAGE_CLASSES, () -> this.retrieveClasses(index));
+            // calculate sizes
+            lastSize = scheduler.addTask(STAGE_SIZES, () -> this.retrieveJavaFileSize(index), classes);
+            // retrieve commits of the release
+            StageScheduler.Task commits = scheduler.addTask(STAGE_COMMITS, () -> this.retrieveReleaseCommit(index));
+            //calculate classes data
+            StageScheduler.Task data = scheduler.addTask(STAGE_DATA, () -> this.retrieveData(index), classes, commits);
+            scheduler.addTask(STAGE_FILTER, () -> this.filterJavaFiles(release), data, lastSize);
+        }
+
+        //reset last version
+        scheduler.addTask(STAGE_SIZES, this.gitBoundary::restoreLastRelease);
+
+        scheduler.run();
+    }
+
+    // mine releases one after another handing each finished release to the consumer,
+    // per file state is dropped afterwards so memory does not grow with the history
+    public void streamReleases(ReleaseConsumer consumer) throws JSONException, IOException, InterruptedException {
+        this.streamReleases(consumer, release -> false);
+    }
+
+    // releases accepted by skipMining are handed over without java files
+    public void streamReleases(ReleaseConsumer consumer, Predicate<Release> skipMining) throws JSONException, IOException, InterruptedException {
+        this.gitBoundary.pinCreationRef();
+        for (int i = 0; i < this.releaseSubset.size(); i++) {
+            Release release = this.releaseSubset.get(i);
+
+            if (skipMining.test(release)) {
+                consumer.accept(release);
+                release.setJavaFiles(new ArrayList<>());
+                continue;
             }
-            release.setJavaFiles(newList);
+
+            this.retrieveClasses(i);
+            this.retrieveJavaFileSize(i);
+            this.retrieveReleaseCommit(i);
+            this.retrieveData(i);
+            this.filterJavaFiles(release);
+            release.getJavaFiles().sort((JavaFile jf1, JavaFile jf2) -> jf1.getName().compareTo(jf2.getName()));
+
+            consumer.accept(release);
+
+            release.setJavaFiles(new ArrayList<>());
+            release.setCommitList(new ArrayList<>());
         }
+        //reset last version
+        this.gitBoundary.restoreLastRelease();
+    }
+
+    private void filterJavaFiles(Release release) {
+        List<JavaFile> newList = new ArrayList<>();
+        for(JavaFile java : release.getJavaFiles()){
+            if(!(java.getTouchedLOC() == 0 &&  java.getCommitCount() == 0 && java.getAvgChgSetSize() == 0 && java.getAvgChurn() == 0)){
+                newList.add(java);
+            }
+        }
+        release.setJavaFiles(newList);
     }
 
 
@@ -71,23 +158,17 @@ public class ReleaseManager {
     }
 
 
-    private void parseRelease(JSONObject obj) throws JSONException, IOException, InterruptedException {
-        String name = "";
-        String id = "";
+    private void parseRelease(JiraVersionData version) throws IOException, InterruptedException {
+        String name = version.getName();
+        String id = version.getId();
         LocalDateTime releaseDate;
 
-        //get parameters from the JSON
-        if (obj.has("name"))
-            name = obj.getString("name");
-        if (obj.has("id"))
-            id = obj.getString("id");
-
-        boolean isReleased = obj.getBoolean("released");
-        boolean isDated = obj.has("releaseDate");
+        boolean isReleased = version.isReleased();
+        boolean isDated = version.isDated();
 
         //released with JiraDate
         if (isReleased && isDated) {
-            releaseDate = LocalDate.parse(obj.getString("releaseDate")).atStartOfDay();
+            releaseDate = LocalDate.parse(version.getReleaseDate()).atStartOfDay();
             this.addRelease(name, id, releaseDate);
         }
 
@@ -117,13 +198,16 @@ public class ReleaseManager {
         this.unreleased = new ArrayList<>();
         this.releaseSubset = new ArrayList<>();
 
-        JSONArray versions = JiraBoundary.getReleases(this.projectName);
-        for (i = 0; i < versions.length(); i++) {
-            parseRelease(versions.getJSONObject(i));
+        if (this.checkpoint.load(UNIT_RELEASES, this::readReleases) == null) {
+            for (JiraVersionData version : JiraBoundary.getReleases(this.projectName)) {
+                parseRelease(version);
+            }
+            this.checkpoint.save(UNIT_RELEASES, this::writeReleases);
         }
 
         //order releases by date
         this.releases.sort((Release r1, Release r2) -> r1.getReleaseDate().compareTo(r2.getReleaseDate()));
+        this.timeline = new ReleaseTimeline(this.releases, this.unreleased);
 
         LOGGER.log(Level.INFO, "Indexing releases");
         //set index starting from 1
@@ -135,8 +219,11 @@ public class ReleaseManager {
             release.setReleaseIndex(i + 1);
         }
 
-        //consider only first half
-        this.releaseSubset = this.releases.subList(0, this.releases.size() / 2);
+        //consider only first half unless the full history is requested
+        if (this.fullHistory)
+            this.releaseSubset = this.releases;
+        else
+            this.releaseSubset = this.releases.subList(0, this.releases.size() / 2);
 
         String outStr = "Retrieved " + this.releases.size() + " releases released";
         LOGGER.log(Level.INFO, outStr);
@@ -149,9 +236,8 @@ public class ReleaseManager {
 
     }
 
-    //retrieve the classes of each release their size and age in weeks
-    private void retrieveClasses() throws IOException, InterruptedException {
-        LOGGER.log(Level.INFO, "Retrieving java files for each release");
+    //retrieve the classes of the release their size and age in weeks
+    private void retrieveClasses(int i) throws IOException, InterruptedException {
         JavaFile javaFile;
         Release release;
         List<String> classes;
@@ -159,89 +245,217 @@ public class ReleaseManager {
 
         String outString;
 
-        for (int i = 0; i < this.releaseSubset.size(); i++) {
-            release = this.releaseSubset.get(i);
-            fileList = new ArrayList<>();
-            classes = this.gitBoundary.getReleaseClasses(release.getGitName());
+        release = this.releaseSubset.get(i);
+        String unit = UNIT_CLASSES + release.getReleaseIndex();
+        final Release finalRelease = release;
+        fileList = this.checkpoint.load(unit, in -> readClasses(in, finalRelease));
+        if (fileList != null) {
+            release.setJavaFiles(fileList);
+            return;
+        }
 
-            outString = "Step: " + (i + 1) + "/" + this.releaseSubset.size();
-            LOGGER.log(Level.INFO, outString);
+        fileList = new ArrayList<>();
+        classes = this.gitBoundary.getReleaseClasses(release.getGitName());
 
-            for (String className : classes) {
-                LocalDateTime creationDate = this.gitBoundary.getDate(className, false);
-                //filter limit case
-                if (creationDate.isBefore(release.getReleaseDate())) {
-                    javaFile = new JavaFile(className, release.getReleaseIndex(), creationDate/*, sizes.get(0), sizes.get(1)*/);
-                    //exec age
-                    javaFile.execAge(release.getReleaseDate());
-                    fileList.add(javaFile);
-                }
+        outString = "Retrieving java files, release: " + (i + 1) + "/" + this.releaseSubset.size();
+        LOGGER.log(Level.INFO, outString);
+
+        for (String className : classes) {
+            LocalDateTime creationDate = this.getCreationDate(className);
+            if (creationDate == null) {
+                outString = "No creation date for " + className + ", skipped";
+                LOGGER.log(Level.WARNING, outString);
+                continue;
             }
-            release.setJavaFiles(fileList);
+            //filter limit case
+            if (creationDate.isBefore(release.getReleaseDate())) {
+                javaFile = new JavaFile(className, release.getReleaseIndex(), creationDate/*, sizes.get(0), sizes.get(1)*/);
+                //exec age
+                javaFile.execAge(release.getReleaseDate());
+                fileList.add(javaFile);
+            }
+        }
+        release.setJavaFiles(fileList);
+        final List<JavaFile> finalList = fileList;
+        this.checkpoint.save(unit, out -> writeClasses(out, finalList));
 
-            outString = "Release name: " + release.getGitName() + " Java files retrieved: " + fileList.size();
-            LOGGER.log(Level.INFO, outString);
+        outString = "Release name: " + release.getGitName() + " Java files retrieved: " + fileList.size();
+        LOGGER.log(Level.INFO, outString);
+    }
+
+    private LocalDateTime getCreationDate(String className) throws IOException, InterruptedException {
+        LocalDateTime creationDate = this.creationDates.get(className);
+        if (creationDate == null) {
+            creationDate = this.gitBoundary.getDate(className, false);
+            if (creationDate != null)
+                this.creationDates.put(className, creationDate);
         }
+        return creationDate;
     }
 
-    private void retrieveJavaFileSize() throws IOException, InterruptedException, JSONException {
+    private void retrieveJavaFileSize(int index) throws IOException, InterruptedException, JSONException {
         Release release;
-        int relSize = this.releaseSubset.size();
-        int index;
         List<Integer> sizes;
-        LOGGER.log(Level.INFO, "Calculating file size for each file in each release");
-        for (index = 0; index < relSize; index++) {
-            String outStr = "Release " + (index + 1) + "/" + relSize;
-            LOGGER.log(Level.INFO, outStr);
-
-            release = this.releaseSubset.get(index);
-            //change version on repo
-            this.gitBoundary.changeRelease(release.getGitName());
-
-            //calculate size for each file
-            for (JavaFile file : release.getJavaFiles()) {
-                //[0] codes
-                //[1] comments
-                sizes = TokeiBoundary.getSizes(file.getName(), this.gitBoundary.getWorkingCopy());
-                file.setSizes(sizes.get(0), sizes.get(1));
-            }
-        }
-        //reset last version
-        this.gitBoundary.restoreLastRelease();
 
+        String outStr = "Calculating file size, release " + (index + 1) + "/" + this.releaseSubset.size();
+        LOGGER.log(Level.INFO, outStr);
+
+        release = this.releaseSubset.get(index);
+        String unit = UNIT_SIZES + release.getReleaseIndex();
+        final List<JavaFile> files = release.getJavaFiles();
+        if (this.checkpoint.load(unit, in -> readSizes(in, files)) != null)
+            return;
+
+        //change version on repo
+        this.gitBoundary.changeRelease(release.getGitName());
+
+        //calculate size for each file
+        for (JavaFile file : files) {
+            //[0] codes
+            //[1] comments
+            sizes = TokeiBoundary.getSizes(file.getName(), this.gitBoundary.getWorkingCopy());
+            file.setSizes(sizes.get(0), sizes.get(1));
+        }
+        this.checkpoint.save(unit, out -> writeSizes(out, files));
     }
 
-    private void retrieveReleaseCommit() throws IOException, InterruptedException {
+    private void retrieveReleaseCommit(int i) throws IOException, InterruptedException {
         Release release;
         List<Commit> commitList;
         LocalDateTime minDate;
         LocalDateTime maxDate;
-        int i;
 
-        String outString = "Retrieving release commits";
+        String outString = "Retrieving commits, release: " + (i + 1) + "/" + this.releaseSubset.size();
         LOGGER.log(Level.INFO, outString);
 
-        for (i = 0; i < this.releaseSubset.size(); i++) {
-
-            outString = "Release: " + (i + 1) + "/" + this.releaseSubset.size();
-            LOGGER.log(Level.INFO, outString);
+        if (i == 0) {
+            // first release
+            minDate = null;
+        } else
+            // other releases
+            minDate = this.releaseSubset.get(i - 1).getReleaseDate();
+        release = this.releaseSubset.get(i);
+        String unit = UNIT_COMMITS + release.getReleaseIndex();
+        commitList = this.checkpoint.load(unit, ReleaseManager::readCommits);
+        if (commitList != null) {
+            release.setCommitList(commitList);
+            return;
+        }
 
-            if (i == 0) {
-                // first release
-                minDate = null;
-            } else
-                // other releases
-                minDate = this.releaseSubset.get(i - 1).getReleaseDate();
-            release = this.releaseSubset.get(i);
-            maxDate = release.getReleaseDate();
-            commitList = this.gitBoundary.getReleaseCommits(minDate, maxDate);
-            outString = "Release name: " + release.getGitName() + " " + release.getReleaseID() + " Commits retrieved: " + commitList.size();
+        maxDate = release.getReleaseDate();
+        commitList = this.gitBoundary.getReleaseCommits(minDate, maxDate);
+        // the git window is applied on instants in the local time zone, the commit day decides the release
+        final Release commitRelease = release;
+        int windowSize = commitList.size();
+        commitList.removeIf(commit -> this.timeline.getReleaseFromCommitDate(commit.getDate()) != commitRelease);
+        if (commitList.size() != windowSize) {
+            outString = "Release name: " + release.getGitName() + " commits of other releases dropped: " + (windowSize - commitList.size());
             LOGGER.log(Level.INFO, outString);
-            commitList = this.retrieveCommitsData(commitList);
-            release.setCommitList(commitList);
         }
-        outString = "Commits retrieved";
+        outString = "Release name: " + release.getGitName() + " " + release.getReleaseID() + " Commits retrieved: " + commitList.size();
         LOGGER.log(Level.INFO, outString);
+        commitList = this.retrieveCommitsData(commitList);
+        release.setCommitList(commitList);
+        final List<Commit> finalList = commitList;
+        this.checkpoint.save(unit, out -> writeCommits(out, finalList));
+    }
+
+    private Boolean readReleases(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        for (int k = 0; k < size; k++)
+            this.releases.add(new Release(Checkpoint.readDate(in), in.readUTF(), in.readUTF(), in.readUTF()));
+        size = in.readInt();
+        for (int k = 0; k < size; k++)
+            this.unreleased.add(new Release(in.readUTF(), in.readUTF(), in.readUTF()));
+        return Boolean.TRUE;
+    }
+
+    private void writeReleases(DataOutputStream out) throws IOException {
+        out.writeInt(this.releases.size());
+        for (Release release : this.releases) {
+            Checkpoint.writeDate(out, release.getReleaseDate());
+            out.writeUTF(release.getJiraName());
+            out.writeUTF(release.getGitName());
+            out.writeUTF(release.getReleaseID());
+        }
+        out.writeInt(this.unreleased.size());
+        for (Release release : this.unreleased) {
+            out.writeUTF(release.getJiraName());
+            out.writeUTF(release.getGitName());
+            out.writeUTF(release.getReleaseID());
+        }
+    }
+
+    private static List<JavaFile> readClasses(DataInputStream in, Release release) throws IOException {
+        int size = in.readInt();
+        List<JavaFile> fileList = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            JavaFile javaFile = new JavaFile(in.readUTF(), release.getReleaseIndex(), Checkpoint.readDate(in));
+            javaFile.execAge(release.getReleaseDate());
+            fileList.add(javaFile);
+        }
+        return fileList;
+    }
+
+    private static void writeClasses(DataOutputStream out, List<JavaFile> fileList) throws IOException {
+        out.writeInt(fileList.size());
+        for (JavaFile javaFile : fileList) {
+            out.writeUTF(javaFile.getName());
+            Checkpoint.writeDate(out, javaFile.getCreationDate());
+        }
+    }
+
+    // sizes follow the order of the class list snapshot
+    private static Boolean readSizes(DataInputStream in, List<JavaFile> fileList) throws IOException {
+        int size = in.readInt();
+        if (size != fileList.size())
+            return null;
+        for (JavaFile javaFile : fileList)
+            javaFile.setSizes(in.readInt(), in.readInt());
+        return Boolean.TRUE;
+    }
+
+    private static void writeSizes(DataOutputStream out, List<JavaFile> fileList) throws IOException {
+        out.writeInt(fileList.size());
+        for (JavaFile javaFile : fileList) {
+            out.writeInt(javaFile.getSize());
+            out.writeInt(javaFile.getComments());
+        }
+    }
+
+    private static List<Commit> readCommits(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<Commit> commitList = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            Commit commit = new Commit(in.readUTF(), Checkpoint.readText(in), in.readUTF(), in.readUTF());
+            int touched = in.readInt();
+            List<CommitFileData> dataList = new ArrayList<>(touched);
+            for (int t = 0; t < touched; t++) {
+                CommitFileData fileData = new CommitFileData(in.readUTF(), in.readInt(), in.readInt());
+                fileData.setChgSetSize(in.readInt());
+                dataList.add(fileData);
+            }
+            commit.setTouchedFiles(dataList);
+            commitList.add(commit);
+        }
+        return commitList;
+    }
+
+    private static void writeCommits(DataOutputStream out, List<Commit> commitList) throws IOException {
+        out.writeInt(commitList.size());
+        for (Commit commit : commitList) {
+            out.writeUTF(commit.getSha());
+            Checkpoint.writeText(out, commit.getMessage());
+            out.writeUTF(commit.getAuthor());
+            out.writeUTF(commit.getDate().toLocalDate().toString());
+            out.writeInt(commit.getTouchedFiles().size());
+            for (CommitFileData fileData : commit.getTouchedFiles()) {
+                out.writeUTF(fileData.getName());
+                out.writeInt(fileData.getAdded());
+                out.writeInt(fileData.getDeleted());
+                out.writeInt(fileData.getChgSetSize());
+            }
+        }
     }
 
 
@@ -271,8 +485,7 @@ public class ReleaseManager {
         return finalList;
     }
 
-    private void retrieveData() {
-        LOGGER.log(Level.INFO, "Calculating file data");
+    private void retrieveData(int counter) {
         JavaFile javaFile;
         String fileName;
         String author;
@@ -282,66 +495,44 @@ public class ReleaseManager {
         Release release;
 
         String outStr;
-        int counter;
-
-        for (counter = 0; counter < this.releaseSubset.size(); counter++) {
-            outStr = "Release " + (counter + 1) + "/" + this.releaseSubset.size();
-            LOGGER.log(Level.INFO, outStr);
-            release = this.releaseSubset.get(counter);
-            for (Commit commit : release.getCommitList()) {
-                author = commit.getAuthor();
-                for (CommitFileData touchedFile : commit.getTouchedFiles()) {
-                    fileName = touchedFile.getName();
-                    added = touchedFile.getAdded();
-                    deleted = touchedFile.getDeleted();
-                    chgSetSize = touchedFile.getChgSetSize();
-
-                    javaFile = release.getClassByName(fileName);
-                    if (javaFile != null) {
-                        //set needed parameters
-                        javaFile.increaseCommitCount();
-                        javaFile.increaseTouchedLOC(added, deleted);
-                        javaFile.addAuthor(author);
-                        javaFile.addAddedCount(added);
-                        javaFile.addChurnCount(added, deleted);
-                        javaFile.addChgSetSize(chgSetSize);
-                    }
+
+        outStr = "Calculating file data, release " + (counter + 1) + "/" + this.releaseSubset.size();
+        LOGGER.log(Level.INFO, outStr);
+        release = this.releaseSubset.get(counter);
+        for (Commit commit : release.getCommitList()) {
+            author = commit.getAuthor();
+            for (CommitFileData touchedFile : commit.getTouchedFiles()) {
+                fileName = touchedFile.getName();
+                added = touchedFile.getAdded();
+                deleted = touchedFile.getDeleted();
+                chgSetSize = touchedFile.getChgSetSize();
+
+                javaFile = release.getClassByName(fileName);
+                if (javaFile != null) {
+                    //set needed parameters
+                    javaFile.increaseCommitCount();
+                    javaFile.increaseTouchedLOC(added, deleted);
+                    javaFile.addAuthor(author);
+                    javaFile.addAddedCount(added);
+                    javaFile.addChurnCount(added, deleted);
+                    javaFile.addChgSetSize(chgSetSize);
                 }
             }
         }
-        LOGGER.log(Level.INFO, "Classes data calculated");
     }
 
     public Release getReleaseFromDate(String date) {
-        Release rel;
-        Release actual;
-        rel = null;
-
-        LocalDateTime ldt = LocalDate.parse(date).atStartOfDay();
-
         //return the first release with first date after given date
-        for (Release release : this.releases) {
-            actual = release;
-            if (ldt.isBefore(actual.getReleaseDate())) {
-                return actual;
-            }
-        }
-
         //if no release match get the first unreleased or null
-        if(!this.unreleased.isEmpty())
-            rel = this.unreleased.get(0);
-
-        return rel;
+        return this.timeline.getReleaseAfter(LocalDate.parse(date));
     }
 
     public Release getReleaseByJiraName(String jiraName) {
-        Release rel;
-        rel = this.releases.stream().filter(release -> jiraName.equals(release.getJiraName())).findAny().orElse(null);
-        if(rel == null)
-            rel = this.unreleased.stream().filter(release -> jiraName.equals(release.getJiraName())).findAny().orElse(null);
-        return rel;
+        return this.timeline.getByJiraName(jiraName);
     }
 
+    public ReleaseTimeline getTimeline() { return this.timeline; }
+
     public List<Release> getReleases() {
         return this.releases;
     }
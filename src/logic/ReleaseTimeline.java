@@ -0,0 +1,50 @@
+package logic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// date and name lookups over the releases of a project
+public class ReleaseTimeline {
+
+    // release date as epoch day, first release of the day when more share it
+    private final NavigableMap<Long, Release> byDay;
+    private final Map<String, Release> byJiraName;
+    private final Release firstUnreleased;
+
+    // releases ordered by date
+    public ReleaseTimeline(List<Release> releases, List<Release> unreleased) {
+        this.byDay = new TreeMap<>();
+        this.byJiraName = new HashMap<>();
+
+        for (Release release : releases) {
+            this.byDay.putIfAbsent(release.getReleaseDate().toLocalDate().toEpochDay(), release);
+            this.byJiraName.putIfAbsent(release.getJiraName(), release);
+        }
+        // released versions win on name clashes
+        for (Release release : unreleased)
+            this.byJiraName.putIfAbsent(release.getJiraName(), release);
+
+        this.firstUnreleased = unreleased.isEmpty() ? null : unreleased.get(0);
+    }
+
+    // first release after the given day, else the first unreleased or null
+    public Release getReleaseAfter(LocalDate date) {
+        Map.Entry<Long, Release> entry = this.byDay.higherEntry(date.toEpochDay());
+        return entry != null ? entry.getValue() : this.firstUnreleased;
+    }
+
+    // release a commit of the given date belongs to: first release on or after that day
+    public Release getReleaseFromCommitDate(LocalDateTime commitDate) {
+        Map.Entry<Long, Release> entry = this.byDay.ceilingEntry(commitDate.toLocalDate().toEpochDay());
+        return entry != null ? entry.getValue() : this.firstUnreleased;
+    }
+
+    public Release getByJiraName(String jiraName) {
+        return this.byJiraName.get(jiraName);
+    }
+}
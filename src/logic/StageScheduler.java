@@ -0,0 +1,181 @@
+package logic;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class StageScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(StageScheduler.class.getName());
+    private static final double NANO_TO_SEC = 1e9;
+
+    private final int parallelism;
+    private final List<Task> tasks;
+    private final Map<String, StageTiming> timings;
+    // last unit added for each serial stage
+    private final Map<String, Task> serialTail;
+
+    @FunctionalInterface
+    public interface StageUnit {
+        void run() throws IOException, InterruptedException, JSONException;
+    }
+
+    public static class Task {
+        private final String stage;
+        private final StageUnit unit;
+        private final List<Task> dependants;
+        private final AtomicInteger pending;
+
+        private Task(String stage, StageUnit unit) {
+            this.stage = stage;
+            this.unit = unit;
+            this.dependants = new ArrayList<>();
+            this.pending = new AtomicInteger(0);
+        }
+
+        public String getStage() { return this.stage; }
+    }
+
+    private static class StageTiming {
+        private final AtomicInteger units = new AtomicInteger(0);
+        private final AtomicLong busy = new AtomicLong(0);
+        private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+
+        private void record(long start, long end) {
+            this.units.incrementAndGet();
+            this.busy.addAndGet(end - start);
+            this.firstStart.accumulateAndGet(start, Math::min);
+            this.lastEnd.accumulateAndGet(end, Math::max);
+        }
+    }
+
+    public StageScheduler(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.tasks = new ArrayList<>();
+        this.timings = new LinkedHashMap<>();
+        this.serialTail = new HashMap<>();
+    }
+
+    // units of a serial stage run one at a time in insertion order
+    // (e.g. stages that check out the shared working copy)
+    public void setSerial(String stage) {
+        this.serialTail.putIfAbsent(stage, null);
+    }
+
+    public Task addTask(String stage, StageUnit unit, Task... dependencies) {
+        Task task = new Task(stage, unit);
+
+        for (Task dependency : dependencies) {
+            if (dependency != null)
+                this.addDependency(dependency, task);
+        }
+
+        // chain serial units to the previous unit of the same stage
+        if (this.serialTail.containsKey(stage)) {
+            Task previous = this.serialTail.get(stage);
+            if (previous != null)
+                this.addDependency(previous, task);
+            this.serialTail.put(stage, task);
+        }
+
+        this.timings.computeIfAbsent(stage, s -> new StageTiming());
+        this.tasks.add(task);
+        return task;
+    }
+
+    private void addDependency(Task from, Task to) {
+        from.dependants.add(to);
+        to.pending.incrementAndGet();
+    }
+
+    public void run() throws IOException, InterruptedException, JSONException {
+        CountDownLatch done = new CountDownLatch(this.tasks.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+        long start = System.nanoTime();
+
+        try {
+            for (Task task : this.tasks) {
+                if (task.pending.get() == 0)
+                    this.submit(executor, task, done, failure);
+            }
+
+            // wait for every unit or for the first failure
+            while (!done.await(1, TimeUnit.SECONDS)) {
+                if (failure.get() != null)
+                    break;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Throwable e = failure.get();
+        if (e != null)
+            rethrow(e);
+
+        this.logTimings(System.nanoTime() - start);
+    }
+
+    private void submit(ExecutorService executor, Task task, CountDownLatch done, AtomicReference<Throwable> failure) {
+        executor.execute(() -> {
+            if (failure.get() != null)
+                return;
+
+            long unitStart = System.nanoTime();
+            try {
+                task.unit.run();
+            } catch (Throwable e) {
+                // errors too, otherwise run() would wait for this unit forever
+                failure.compareAndSet(null, e);
+                return;
+            }
+            this.timings.get(task.stage).record(unitStart, System.nanoTime());
+
+            // release dependants whose inputs are all ready
+            for (Task dependant : task.dependants) {
+                if (dependant.pending.decrementAndGet() == 0)
+                    this.submit(executor, dependant, done, failure);
+            }
+            done.countDown();
+        });
+    }
+
+    private static void rethrow(Throwable e) throws IOException, InterruptedException, JSONException {
+        if (e instanceof IOException)
+            throw (IOException) e;
+        if (e instanceof InterruptedException)
+            throw (InterruptedException) e;
+        if (e instanceof JSONException)
+            throw (JSONException) e;
+        throw new IllegalStateException(e);
+    }
+
+    private void logTimings(long wall) {
+        StringBuilder report = new StringBuilder("Stage timings (parallelism " + this.parallelism + ", wall " + wall / NANO_TO_SEC + "s)");
+        for (Map.Entry<String, StageTiming> entry : this.timings.entrySet()) {
+            StageTiming timing = entry.getValue();
+            if (timing.units.get() == 0)
+                continue;
+            report.append("\n-").append(entry.getKey())
+                    .append(": units ").append(timing.units.get())
+                    .append(", span ").append((timing.lastEnd.get() - timing.firstStart.get()) / NANO_TO_SEC).append("s")
+                    .append(", busy ").append(timing.busy.get() / NANO_TO_SEC).append("s");
+        }
+        LOGGER.log(Level.INFO, report.toString());
+    }
+}
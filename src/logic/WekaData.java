@@ -22,6 +22,8 @@ public class WekaData {
     private double recall;
     private double auc;
     private double kappa;
+    // testing set distributions of the trained model, null when not kept
+    private Predictions predictions;
 
     public WekaData(String datasetName, int trainingRelease, WekaManager.FeatureSelection featureSelection, WekaManager.Sampling balancing, WekaManager.ClassifierType classifier, WekaManager.CostSensitive sensitivity) {
         this.datasetName = datasetName;
@@ -141,6 +143,14 @@ public class WekaData {
         this.trainingData = trainingData;
     }
 
+    public Predictions getPredictions() {
+        return predictions;
+    }
+
+    public void setPredictions(Predictions predictions) {
+        this.predictions = predictions;
+    }
+
     public String getSensitivity() {
         return sensitivity.toString();
     }
@@ -1,24 +1,40 @@
 package logic;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import weka.classifiers.CostMatrix;
 import weka.classifiers.evaluation.Evaluation;
 import weka.classifiers.bayes.NaiveBayes;
+import weka.classifiers.bayes.NaiveBayesUpdateable;
 import weka.classifiers.lazy.IBk;
 import weka.classifiers.trees.RandomForest;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instance;
 import weka.filters.Filter;
 import weka.filters.supervised.attribute.AttributeSelection;
 import weka.attributeSelection.BestFirst;
 import weka.attributeSelection.CfsSubsetEval;
 import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
 import weka.classifiers.meta.CostSensitiveClassifier;
 import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
 import weka.core.WekaException;
 import weka.core.converters.CSVLoader;
 import weka.filters.supervised.instance.Resample;
@@ -30,6 +46,13 @@ public class WekaManager {
     private static final Logger LOGGER = Logger.getLogger(WekaManager.class.getName());
     private static final double CFP = 1.0;
     private static final double CFN = 10 * CFP;
+    private static final double OVERSAMPLING_BIAS = 1.0;
+    private static final String[] UNDERSAMPLING_OPTIONS = new String[]{ "-M", "1.0"};
+    // -Devaluation.parallelism=1 evaluates the grid on a single thread
+    private static final int PARALLELISM = Integer.getInteger("evaluation.parallelism", Runtime.getRuntime().availableProcessors());
+    private static final int STEP_WINDOW = 2;
+    // -Devaluation.incremental=true carries updateable models from a step to the next one
+    private static final boolean INCREMENTAL = Boolean.getBoolean("evaluation.incremental");
 
     public enum ClassifierType {
         RANDOM_FOREST,
@@ -62,14 +85,16 @@ public class WekaManager {
         private List<FeatureSelection> featureSelection;
         private List<Sampling> sampling;
         private List<CostSensitive> sensitivity;
+        private EvaluationCache cache;
 
-        public StepInput(String datasetName, int trainingRelease, List<ClassifierType> classifierType, List<FeatureSelection> featureSelection, List<Sampling> sampling, List<CostSensitive> sensitivity ) {
+        public StepInput(String datasetName, int trainingRelease, List<ClassifierType> classifierType, List<FeatureSelection> featureSelection, List<Sampling> sampling, List<CostSensitive> sensitivity, EvaluationCache cache) {
             this.datasetName = datasetName;
             this.trainingRelease = trainingRelease;
             this.classifierType = classifierType;
             this.featureSelection = featureSelection;
             this.sampling = sampling;
             this.sensitivity = sensitivity;
+            this.cache = cache;
         }
 
         public String getDatasetName() { return this.datasetName; }
@@ -78,55 +103,191 @@ public class WekaManager {
         public List<FeatureSelection> getFeatureSelection() { return this.featureSelection; }
         public List<Sampling> getSampling() { return this.sampling; }
         public List<CostSensitive> getSensitivity() { return this.sensitivity; }
+        public EvaluationCache getCache() { return this.cache; }
     }
 
-    // return[0] --> Training Set: from release 1 to lastTrainingIndex
-    // return[1] --> Testing Set: lastTrainingIndex+1
-    private static  List<Instances> splitSets(Instances instances, int lastTrainingIndex) {
-        List<Instances> splittedSets = new ArrayList<>();
+    @FunctionalInterface
+    private interface WekaTask<T> {
+        T call() throws WekaException;
+    }
+
+    // updateable classifier trained up to a step and the results it gave on the step testing set
+    private static class CarriedModel {
+        private final Classifier classifier;
+        private final Map<CostSensitive, WekaData> results;
 
-        // init training set and testing set
-        Instances trainingSet = new Instances(instances, 0);
-        Instances testingSet = new Instances(instances,0);
+        public CarriedModel(Classifier classifier, Map<CostSensitive, WekaData> results) {
+            this.classifier = classifier;
+            this.results = results;
+        }
+
+        public Classifier getClassifier() { return this.classifier; }
+        public Map<CostSensitive, WekaData> getResults() { return this.results; }
+    }
 
-        int index;
+    private static <T> CompletableFuture<T> submit(WekaTask<T> task, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (WekaException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
 
-        //training set
-        for(index=1; index<=lastTrainingIndex; index++) {
-            int releaseIndex = index;
-            instances.parallelStream().filter(instance -> instance.toString(0).equals(Integer.toString(releaseIndex))).forEachOrdered(trainingSet::add);
+    private static <T> T join(CompletableFuture<T> future) throws WekaException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof WekaException)
+                throw (WekaException) e.getCause();
+            throw new WekaException(e.getCause());
         }
+    }
 
-        splittedSets.add(trainingSet);
+    // preprocessed sets of a step, each one built once and shared by every configuration using it,
+    // tasks work on their own copies so no Instances is used by two threads
+    private static class StepSets {
+        private final Instances trainingSet;
+        private final Instances testingSet;
+        private final Executor executor;
+        // [0] training [1] testing after feature selection
+        private final Map<FeatureSelection, CompletableFuture<List<Instances>>> selected;
+        private final Map<FeatureSelection, Map<Sampling, CompletableFuture<Instances>>> sampled;
+        private int built;
+        private int reused;
+
+        public StepSets(Instances trainingSet, Instances testingSet, Executor executor) {
+            this.trainingSet = trainingSet;
+            this.testingSet = testingSet;
+            this.executor = executor;
+            this.selected = new EnumMap<>(FeatureSelection.class);
+            this.sampled = new EnumMap<>(FeatureSelection.class);
+            this.built = 0;
+            this.reused = 0;
+        }
 
-        //testing set
-        final int testIndex;
-        testIndex = index;
+        public CompletableFuture<List<Instances>> getSelected(FeatureSelection featureSelection) {
+            CompletableFuture<List<Instances>> sets = this.selected.get(featureSelection);
+            if (sets == null) {
+                sets = submit(() -> applyFeatureSelection(new Instances(this.trainingSet), new Instances(this.testingSet), featureSelection), this.executor);
+                this.selected.put(featureSelection, sets);
+                this.built++;
+            } else {
+                this.reused++;
+            }
+            return sets;
+        }
 
-        instances.parallelStream().filter(instance -> instance.toString(0).equals(Integer.toString(testIndex))).forEachOrdered(testingSet::add);
-        splittedSets.add(testingSet);
+        public CompletableFuture<Instances> getSampled(FeatureSelection featureSelection, Sampling sampling) {
+            Map<Sampling, CompletableFuture<Instances>> bySampling = this.sampled.computeIfAbsent(featureSelection, fs -> new EnumMap<>(Sampling.class));
+            CompletableFuture<Instances> sets = bySampling.get(sampling);
+            if (sets == null) {
+                sets = this.getSelected(featureSelection).thenCompose(selectedSets -> submit(() -> applySampling(new Instances(selectedSets.get(0)), sampling), this.executor));
+                bySampling.put(sampling, sets);
+                this.built++;
+            } else {
+                this.reused++;
+            }
+            return sets;
+        }
 
-        return splittedSets;
+        public int getBuilt() { return this.built; }
+        public int getReused() { return this.reused; }
     }
 
-    public static List<List<WekaData>> walkForward(String projectName, String datasetPath, List<ClassifierType> classifierList, List<FeatureSelection> featureSelectionList, List<Sampling> samplingList, List<CostSensitive> costList) throws WekaException {
-        List<Instances> splittedSets;
-        Instances trainingSet;
-        Instances testingSet;
-        StepInput input;
-        String datasetName;
-        String report;
+    // instances of release r at index r, release index attribute removed, built in one pass
+    private static List<Instances> partitionByRelease(Instances instances) {
+        int numInstances = instances.numInstances();
+        int[] releaseIndexes = new int[numInstances];
+        int maxRelease = 0;
+        for (int k = 0; k < numInstances; k++) {
+            releaseIndexes[k] = (int) instances.instance(k).value(0);
+            maxRelease = Math.max(maxRelease, releaseIndexes[k]);
+        }
 
-        List<WekaData> stepData;
+        Instances data = new Instances(instances);
+        data.deleteAttributeAt(0);
+        data.setClassIndex(data.numAttributes() - 1);
 
-        int numReleases;
+        List<Instances> partitions = new ArrayList<>(maxRelease + 1);
+        for (int r = 0; r <= maxRelease; r++)
+            partitions.add(new Instances(data, 0));
+        for (int k = 0; k < numInstances; k++)
+            partitions.get(releaseIndexes[k]).add(data.instance(k));
 
-        // return data
-        List<List<WekaData>> returnData = new ArrayList<>();
+        return partitions;
+    }
+
+    // fixed schema: numeric metrics and the nominal Buggy class, the file name is left out
+    private static Instances emptyDataset(String name, DatasetWriter.Column[] columns, int capacity) {
+        ArrayList<Attribute> attributes = new ArrayList<>();
+        for (DatasetWriter.Column column : columns) {
+            if (column.getType() == DatasetWriter.Type.FLAG)
+                // Yes as value of interest for Buggy
+                attributes.add(new Attribute(column.getHeader(), Arrays.asList("Yes", "No")));
+            else if (column.getType() != DatasetWriter.Type.TEXT)
+                attributes.add(new Attribute(column.getHeader()));
+        }
+        Instances dataset = new Instances(name, attributes, capacity);
+        dataset.setClassIndex(dataset.numAttributes() - 1);
+        return dataset;
+    }
+
+    // flag 1 is Yes, the first nominal value
+    private static double attributeValue(DatasetWriter.Column column, double value) {
+        if (column.getType() == DatasetWriter.Type.FLAG)
+            return value != 0 ? 0 : 1;
+        return value;
+    }
+
+    // dataset straight from the mined files, no csv round trip and no type inference
+    public static Instances buildInstances(String name, List<JavaFile> dataList, DatasetWriter.Column[] columns) {
+        Instances dataset = emptyDataset(name, columns, dataList.size());
+        for (JavaFile file : dataList) {
+            double[] values = new double[dataset.numAttributes()];
+            int a = 0;
+            for (DatasetWriter.Column column : columns) {
+                if (column.getType() != DatasetWriter.Type.TEXT)
+                    values[a++] = attributeValue(column, column.number(file));
+            }
+            dataset.add(new DenseInstance(1.0, values));
+        }
+        return dataset;
+    }
+
+    private static Instances buildInstances(String name, ColumnarDataset source) throws IOException {
+        List<DatasetWriter.Column> numeric = new ArrayList<>();
+        for (DatasetWriter.Column column : source.getColumns()) {
+            if (column.getType() != DatasetWriter.Type.TEXT)
+                numeric.add(column);
+        }
+        DatasetWriter.Column[] columns = numeric.toArray(new DatasetWriter.Column[0]);
+        ColumnarDataset.Table table = source.read(Integer.MIN_VALUE, Integer.MAX_VALUE, columns);
+
+        Instances dataset = emptyDataset(name, columns, table.getRowCount());
+        double[][] columnValues = new double[columns.length][];
+        for (int c = 0; c < columns.length; c++)
+            columnValues[c] = table.getNumbers(columns[c]);
+        for (int row = 0; row < table.getRowCount(); row++) {
+            double[] values = new double[columns.length];
+            for (int c = 0; c < columns.length; c++)
+                values[c] = attributeValue(columns[c], columnValues[c][row]);
+            dataset.add(new DenseInstance(1.0, values));
+        }
+        return dataset;
+    }
+
+    // binary dataset when it is up to date, csv otherwise
+    public static Instances loadInstances(String datasetPath) throws WekaException {
+        File csvFile = new File(datasetPath);
+        File binaryFile = new File(datasetPath.substring(0, datasetPath.lastIndexOf('.')) + ColumnarDataset.FILE_EXT);
+        try {
+            if (binaryFile.isFile() && binaryFile.lastModified() >= csvFile.lastModified())
+                return buildInstances(csvFile.getName(), ColumnarDataset.open(binaryFile.getPath()));
 
-        try{
             CSVLoader csvLoader = new CSVLoader();
-            csvLoader.setSource(new File(datasetPath));
+            csvLoader.setSource(csvFile);
 
             // Yes as value of interest for Buggy
             csvLoader.setNominalLabelSpecs(new Object[]{"Buggy:Yes,No"});
@@ -139,45 +300,142 @@ public class WekaManager {
 
             // set attribute of interest
             dataset.setClassIndex(dataset.numAttributes()-1);
+            return dataset;
+        }catch(Exception e) {
+            throw new WekaException(e);
+        }
+    }
 
-            numReleases = (int) dataset.lastInstance().value(0);
+    // everything besides the step sets that changes the result of a cell
+    private static String evaluationSettings() {
+        StringBuilder settings = new StringBuilder("format=" + EvaluationCache.FORMAT_VERSION + ";cfp=" + CFP + ";cfn=" + CFN);
+        for (ClassifierType classifierType : ClassifierType.values())
+            settings.append(';').append(options(newClassifier(classifierType)));
+        settings.append(';').append(options(new NaiveBayesUpdateable()));
+        settings.append(';').append(options(new CfsSubsetEval())).append(';').append(options(new BestFirst()));
+        settings.append(";oversampling=").append(OVERSAMPLING_BIAS);
+        settings.append(";undersampling=").append(Utils.joinOptions(UNDERSAMPLING_OPTIONS));
+        settings.append(';').append(options(new SMOTE()));
+        return settings.toString();
+    }
 
-            // skip fir step with null training set
-            for(int i=1; i<numReleases; i++) {
-                // split training and testing
-                splittedSets = splitSets(dataset, i);
-                trainingSet = splittedSets.get(0);
-                testingSet = splittedSets.get(1);
+    private static String options(Object configurable) {
+        String name = configurable.getClass().getName();
+        if (configurable instanceof OptionHandler)
+            return name + " " + Utils.joinOptions(((OptionHandler) configurable).getOptions());
+        return name;
+    }
 
+    // identifies the content of the step sets for the evaluation cache, extended release by release
+    private static long updateHash(long hash, Instances instances) {
+        hash = 31 * hash + instances.numInstances();
+        for (int i = 0; i < instances.numInstances(); i++) {
+            for (double value : instances.instance(i).toDoubleArray())
+                hash = 31 * hash + Double.hashCode(value);
+        }
+        return hash;
+    }
 
-                // remove release index after split
-                trainingSet.deleteAttributeAt(0);
-                testingSet.deleteAttributeAt(0);
+    public static List<List<WekaData>> walkForward(String projectName, String datasetPath, List<ClassifierType> classifierList, List<FeatureSelection> featureSelectionList, List<Sampling> samplingList, List<CostSensitive> costList) throws WekaException {
+        Instances dataset = loadInstances(datasetPath);
+        return walkForward(projectName, new File(datasetPath).getName(), dataset, classifierList, featureSelectionList, samplingList, costList);
+    }
 
-                 datasetName = projectName + "-step_" + i;
+    // steps complete in any order, they are collected in step order
+    private static void collectStep(List<CompletableFuture<List<WekaData>>> steps, List<List<WekaData>> returnData, int numReleases) throws WekaException {
+        returnData.add(join(steps.get(returnData.size())));
+        String report = "Step " + returnData.size() + "/" + (numReleases-1) + " completed";
+        LOGGER.log(Level.INFO, report);
+    }
 
-                input = new StepInput(datasetName, i, classifierList, featureSelectionList, samplingList, costList);
+    // dataset with release index first and class last, as built by buildInstances or loadInstances
+    public static List<List<WekaData>> walkForward(String projectName, String datasetName, Instances dataset, List<ClassifierType> classifierList, List<FeatureSelection> featureSelectionList, List<Sampling> samplingList, List<CostSensitive> costList) throws WekaException {
+        List<Instances> partitions;
+        Instances trainingSet;
+        Instances testingSet;
+        StepInput input;
+        String stepName;
+        String report;
+
+        int numReleases;
 
-                trainingSet.setClassIndex(trainingSet.numAttributes()-1);
-                testingSet.setClassIndex(testingSet.numAttributes()-1);
+        // return data
+        List<List<WekaData>> returnData = new ArrayList<>();
+        List<CompletableFuture<List<WekaData>>> steps = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM, runnable -> {
+            Thread thread = new Thread(runnable, "weka-evaluation");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-                // single step
-                stepData = walkStep(input, trainingSet, testingSet);
-                returnData.add(stepData);
+        try{
+            // split once, release index removed
+            partitions = partitionByRelease(dataset);
+            numReleases = partitions.size() - 1;
+            trainingSet = new Instances(partitions.get(0), 0);
+            // settings first, cells of another configuration are never reused
+            long trainingHash = evaluationSettings().hashCode();
+
+            // cells evaluated by earlier runs on the same step sets are read back
+            EvaluationCache cache = new EvaluationCache(projectName, datasetName);
+            // models of the last evaluated step, a cached cell breaks the chain
+            Map<ClassifierType, CompletableFuture<CarriedModel>> carried = new EnumMap<>(ClassifierType.class);
+
+            // skip fir step with null training set
+            for(int i=1; i<numReleases; i++) {
+                // training grows by release i, testing is release i+1
+                for (Instance instance : partitions.get(i))
+                    trainingSet.add(instance);
+                testingSet = partitions.get(i + 1);
+                trainingHash = updateHash(trainingHash, partitions.get(i));
+                long stepHash = updateHash(trainingHash, testingSet);
+
+                 stepName = projectName + "-step_" + i;
+
+                input = new StepInput(stepName, i, classifierList, featureSelectionList, samplingList, costList, cache);
+
+                // single step, on its own snapshot of the growing training set
+                int step = i;
+                Map<String, WekaData> cached = cache.load(step, stepHash);
+                steps.add(walkStep(input, new Instances(trainingSet), partitions.get(i), testingSet, cached, carried, executor).thenApply(cells -> {
+                    try {
+                        if(!cached.keySet().containsAll(cells.keySet()))
+                            cache.save(step, stepHash, cells);
+                    }catch(IOException e) {
+                        throw new CompletionException(e);
+                    }
+                    List<WekaData> stepData = new ArrayList<>();
+                    for(WekaData data: cells.values()) {
+                        if(data.isValid())
+                            stepData.add(data);
+                    }
+                    return stepData;
+                }));
 
-                report = "Step " + i + "/" + (numReleases-1) + " completed";
-                LOGGER.log(Level.INFO, report);
+                // bounded number of steps in flight, each holds a copy of its training set
+                while(steps.size() - returnData.size() > STEP_WINDOW)
+                    collectStep(steps, returnData, numReleases);
             }
 
+            while(returnData.size() < steps.size())
+                collectStep(steps, returnData, numReleases);
+
+        }catch(WekaException e) {
+            throw e;
         }catch(Exception e) {
             throw new WekaException(e);
+        }finally {
+            executor.shutdownNow();
         }
         return returnData;
     }
 
-    private static List<WekaData> walkStep(StepInput stepInput, Instances trainingSet, Instances testingSet) throws WekaException {
+    // every configuration cell not found in the cache is a task, cells keyed as in EvaluationCache and in grid order
+    private static CompletableFuture<Map<String, WekaData>> walkStep(StepInput stepInput, Instances trainingSet, Instances newRelease, Instances testingSet, Map<String, WekaData> cached, Map<ClassifierType, CompletableFuture<CarriedModel>> carried, Executor executor) {
 
-        List<WekaData> stepData = new ArrayList<>();
+        Map<String, CompletableFuture<WekaData>> cells = new LinkedHashMap<>();
+        StepSets sets = new StepSets(trainingSet, testingSet, executor);
+        int hits = 0;
 
         // feature selection
         for(FeatureSelection featureSelection: stepInput.getFeatureSelection()) {
@@ -185,24 +443,118 @@ public class WekaManager {
             for(Sampling sampling: stepInput.getSampling()) {
                 // classifier
                 for(ClassifierType classifierType: stepInput.getClassifierType()) {
+                    boolean incremental = isIncremental(featureSelection, sampling, classifierType);
+
+                    // settings evaluated on the model trained on the sampled set, it is trained once for all of them
+                    // unless every one of them is cached
+                    List<CostSensitive> sharedModel = new ArrayList<>();
+                    boolean sharedCached = true;
+                    for(CostSensitive costSensitive: stepInput.getSensitivity()) {
+                        if(costSensitive != CostSensitive.SENSITIVE_LEARNING) {
+                            sharedModel.add(costSensitive);
+                            sharedCached &= cached.containsKey(EvaluationCache.key(featureSelection, sampling, classifierType, costSensitive, incremental));
+                        }
+                    }
+                    CompletableFuture<Map<CostSensitive, WekaData>> shared;
+                    if(sharedModel.isEmpty() || sharedCached) {
+                        shared = null;
+                        if(incremental)
+                            carried.remove(classifierType);
+                    }else if(incremental) {
+                        // training and testing sets are used as they are, the model of the previous step learns the new release
+                        CompletableFuture<CarriedModel> previous = carried.getOrDefault(classifierType, CompletableFuture.completedFuture(null));
+                        CompletableFuture<CarriedModel> model = previous.thenCompose(carriedModel -> submit(() -> evaluateCarried(stepInput, classifierType, sharedModel, carriedModel, trainingSet, newRelease, testingSet), executor));
+                        carried.put(classifierType, model);
+                        shared = model.thenApply(CarriedModel::getResults);
+                    }else {
+                        // filtered and sampled sets come from the step cache
+                        shared = sets.getSampled(featureSelection, sampling).thenCombine(sets.getSelected(featureSelection), (sampledTraining, selectedSets) -> submit(() -> evaluateModel(stepInput, featureSelection, sampling, classifierType, sharedModel, sampledTraining, selectedSets.get(1)), executor))
+                                .thenCompose(model -> model);
+                    }
+
                     // cost sensitive
                     for(CostSensitive costSensitive: stepInput.getSensitivity()) {
-                        List<Instances> featureSelectionDatasets = applyFeatureSelection(trainingSet, testingSet, featureSelection);
-                        Instances fsTraining = featureSelectionDatasets.get(0);
-                        Instances fsTesting = featureSelectionDatasets.get(1);
-                        Instances sampledTraining = applySampling(fsTraining, sampling);
-                        Classifier classifier = generateClassifier(classifierType, sampledTraining);
-                        CostSensitiveClassifier costClassifier = applyCostSensitive(classifier, costSensitive, sampledTraining);
-                        WekaData data = new WekaData(stepInput.getDatasetName(), stepInput.getTrainingRelease(), featureSelection, sampling, classifierType, costSensitive);
-                        evaluateData(data, sampledTraining, fsTesting, classifier, costClassifier);
-                        if(data.isValid())
-                            stepData.add(data);
+                        boolean learning = costSensitive == CostSensitive.SENSITIVE_LEARNING;
+                        String key = EvaluationCache.key(featureSelection, sampling, classifierType, costSensitive, incremental && !learning);
+                        if(learning ? cached.containsKey(key) : shared == null) {
+                            cells.put(key, CompletableFuture.completedFuture(cached.get(key)));
+                            hits++;
+                        }else if(!learning) {
+                            cells.put(key, shared.thenApply(results -> results.get(costSensitive)));
+                        }else {
+                            cells.put(key, sets.getSampled(featureSelection, sampling).thenCombine(sets.getSelected(featureSelection), (sampledTraining, selectedSets) -> submit(() -> evaluateCell(stepInput, featureSelection, sampling, classifierType, sampledTraining, selectedSets.get(1)), executor))
+                                    .thenCompose(cell -> cell));
+                        }
                     }
                 }
             }
         }
 
-        return stepData;
+        String report = "Step " + stepInput.getTrainingRelease() + ": " + hits + " cached cells, " + (cells.size() - hits) + " evaluated, preprocessing " + sets.getBuilt() + " sets built, " + sets.getReused() + " cache hits";
+        LOGGER.log(Level.INFO, report);
+
+        return CompletableFuture.allOf(cells.values().toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            Map<String, WekaData> stepData = new LinkedHashMap<>();
+            for(Map.Entry<String, CompletableFuture<WekaData>> cell: cells.entrySet())
+                stepData.put(cell.getKey(), cell.getValue().join());
+            return stepData;
+        });
+    }
+
+    // classifier trained once, every setting in costList evaluated on it in list order,
+    // model and copies confined to the running thread
+    private static Map<CostSensitive, WekaData> evaluateModel(StepInput stepInput, FeatureSelection featureSelection, Sampling sampling, ClassifierType classifierType, List<CostSensitive> costList, Instances sampled, Instances testing) throws WekaException {
+        Instances sampledTraining = new Instances(sampled);
+        Instances fsTesting = new Instances(testing);
+        Classifier classifier = generateClassifier(classifierType, sampledTraining);
+        return evaluateTrained(stepInput, featureSelection, sampling, classifierType, costList, classifier, sampledTraining, fsTesting);
+    }
+
+    // the testing set is classified once, each setting reads the stored distributions
+    private static Map<CostSensitive, WekaData> evaluateTrained(StepInput stepInput, FeatureSelection featureSelection, Sampling sampling, ClassifierType classifierType, List<CostSensitive> costList, Classifier classifier, Instances sampledTraining, Instances fsTesting) throws WekaException {
+        Map<CostSensitive, WekaData> results = new EnumMap<>(CostSensitive.class);
+        stepInput.getCache().saveModel(stepInput.getTrainingRelease(), EvaluationCache.key(featureSelection, sampling, classifierType, costList.get(0), isIncremental(featureSelection, sampling, classifierType)), classifier);
+        Predictions predictions = Predictions.of(classifier, fsTesting);
+        for(CostSensitive costSensitive: costList) {
+            WekaData data = new WekaData(stepInput.getDatasetName(), stepInput.getTrainingRelease(), featureSelection, sampling, classifierType, costSensitive);
+            evaluatePredictions(data, sampledTraining, fsTesting, predictions, costSensitive);
+            results.put(costSensitive, data);
+        }
+        // kept once per model for the threshold sweep
+        results.get(costList.get(0)).setPredictions(predictions);
+        return results;
+    }
+
+    // only the first step, or the first after a restored one, trains on the whole set,
+    // the carried model is used by one step at a time along the chain of its classifier
+    private static CarriedModel evaluateCarried(StepInput stepInput, ClassifierType classifierType, List<CostSensitive> costList, CarriedModel previous, Instances trainingSet, Instances newRelease, Instances testingSet) throws WekaException {
+        Classifier classifier;
+        try {
+            if(previous == null) {
+                classifier = newUpdateableClassifier(classifierType);
+                classifier.buildClassifier(new Instances(trainingSet));
+            }else {
+                classifier = previous.getClassifier();
+                for(Instance instance: newRelease)
+                    ((UpdateableClassifier) classifier).updateClassifier(instance);
+            }
+        }catch(Exception e) {
+            throw new WekaException(e);
+        }
+
+        Map<CostSensitive, WekaData> results = evaluateTrained(stepInput, FeatureSelection.NO_FEATURE_SELECTION, Sampling.NO_SAMPLING, classifierType, costList, classifier, trainingSet, new Instances(testingSet));
+        return new CarriedModel(classifier, results);
+    }
+
+    // cost sensitive learning cell on copies confined to the running thread, the cost classifier trains the base one
+    private static WekaData evaluateCell(StepInput stepInput, FeatureSelection featureSelection, Sampling sampling, ClassifierType classifierType, Instances sampled, Instances testing) throws WekaException {
+        Instances sampledTraining = new Instances(sampled);
+        Instances fsTesting = new Instances(testing);
+        CostSensitiveClassifier costClassifier = generateCostSensitiveClassifier(newClassifier(classifierType), sampledTraining);
+        stepInput.getCache().saveModel(stepInput.getTrainingRelease(), EvaluationCache.key(featureSelection, sampling, classifierType, CostSensitive.SENSITIVE_LEARNING, false), costClassifier);
+        WekaData data = new WekaData(stepInput.getDatasetName(), stepInput.getTrainingRelease(), featureSelection, sampling, classifierType, CostSensitive.SENSITIVE_LEARNING);
+        evaluateData(data, sampledTraining, fsTesting, costClassifier);
+        return data;
     }
 
     /**********************************************************
@@ -288,7 +640,7 @@ public class WekaManager {
             Instances filtered;
 
             resample.setNoReplacement(false);
-            resample.setBiasToUniformClass(1.0);
+            resample.setBiasToUniformClass(OVERSAMPLING_BIAS);
             resample.setSampleSizePercent(getOversamplingPercentage(trainingSet));
             try {
                 resample.setInputFormat(trainingSet);
@@ -336,10 +688,9 @@ public class WekaManager {
     private static Instances undersampling(Instances trainingSet) throws WekaException {
         SpreadSubsample spreadSubsample = new SpreadSubsample();
         Instances filtered ;
-        String[] opts = new String[]{ "-M", "1.0"};
 
         try {
-            spreadSubsample.setOptions(opts);
+            spreadSubsample.setOptions(UNDERSAMPLING_OPTIONS.clone());
             spreadSubsample.setInputFormat(trainingSet);
             filtered = Filter.useFilter(trainingSet, spreadSubsample);
         }catch(Exception e ) {
@@ -389,7 +740,7 @@ public class WekaManager {
             return 100*(majority-minority)/minority;
     }
 
-    private static Classifier generateClassifier(ClassifierType classifierType, Instances trainingSet) throws WekaException {
+    private static Classifier newClassifier(ClassifierType classifierType) {
         Classifier classifier;
 
         switch(classifierType){
@@ -406,41 +757,50 @@ public class WekaManager {
                 throw new IllegalArgumentException("Invalid classifier");
         }
 
-        try {
-            classifier.buildClassifier(trainingSet);
-        }catch(Exception e) {
-            throw new WekaException(e);
-        }
-
         return classifier;
     }
 
-    private static CostSensitiveClassifier applyCostSensitive(Classifier classifier, CostSensitive costSensitive, Instances trainingSet) throws WekaException {
-        CostSensitiveClassifier costClassifier;
+    private static boolean isIncremental(FeatureSelection featureSelection, Sampling sampling, ClassifierType classifierType) {
+        return INCREMENTAL && featureSelection == FeatureSelection.NO_FEATURE_SELECTION && sampling == Sampling.NO_SAMPLING
+                && (classifierType == ClassifierType.NAIVE_BAYES || classifierType == ClassifierType.IBK);
+    }
 
-        switch(costSensitive){
-            case NO_COST_SENSITIVE:
-                costClassifier = null;
-                break;
-            case SENSITIVE_THRESHOLD:
-                costClassifier = generateCostSensitiveClassifier(classifier, trainingSet,true);
+    private static Classifier newUpdateableClassifier(ClassifierType classifierType) {
+        Classifier classifier;
+
+        switch(classifierType){
+            case NAIVE_BAYES:
+                classifier = new NaiveBayesUpdateable();
                 break;
-            case SENSITIVE_LEARNING:
-                costClassifier = generateCostSensitiveClassifier(classifier, trainingSet,false);
+            case IBK:
+                classifier = new IBk();
                 break;
             default:
-                throw new IllegalArgumentException("invalid cost sensitive");
+                throw new IllegalArgumentException("Classifier not updateable");
         }
 
-        return costClassifier;
+        return classifier;
     }
 
-    private static CostSensitiveClassifier generateCostSensitiveClassifier(Classifier classifier, Instances trainingSet, boolean threshold) throws WekaException {
+    private static Classifier generateClassifier(ClassifierType classifierType, Instances trainingSet) throws WekaException {
+        Classifier classifier = newClassifier(classifierType);
+
+        try {
+            classifier.buildClassifier(trainingSet);
+        }catch(Exception e) {
+            throw new WekaException(e);
+        }
+
+        return classifier;
+    }
+
+    // cost sensitive learning: the base classifier is trained on the instances reweighted by the cost matrix
+    private static CostSensitiveClassifier generateCostSensitiveClassifier(Classifier classifier, Instances trainingSet) throws WekaException {
         CostSensitiveClassifier costClassifier = new CostSensitiveClassifier();
 
         costClassifier.setClassifier(classifier);
         costClassifier.setCostMatrix(generateCostMatrix(CFP, CFN));
-        costClassifier.setMinimizeExpectedCost(threshold);
+        costClassifier.setMinimizeExpectedCost(false);
 
         try {
             costClassifier.buildClassifier(trainingSet);
@@ -448,10 +808,17 @@ public class WekaManager {
             throw new WekaException(e);
         }
 
-
         return costClassifier;
     }
 
+    public static double getCostFalsePositive() {
+        return CFP;
+    }
+
+    public static double getCostFalseNegative() {
+        return CFN;
+    }
+
     public static CostMatrix generateCostMatrix(double costFalsePositive, double costFalseNegative) {
         CostMatrix costMatrix = new CostMatrix(2);
         costMatrix.setCell(0, 0, 0.0);
@@ -461,30 +828,54 @@ public class WekaManager {
         return costMatrix;
     }
 
-    private static void evaluateData(WekaData data, Instances trainingSet, Instances testingSet, Classifier classifier, CostSensitiveClassifier costClassifier) throws WekaException {
+    // cost sensitive learning only, the other settings are evaluated by evaluatePredictions
+    private static void evaluateData(WekaData data, Instances trainingSet, Instances testingSet, CostSensitiveClassifier costClassifier) throws WekaException {
         Evaluation evaluation;
 
-        double trainingData;
-        double defectiveTraining;
-        double defectiveTesting;
+        try {
+            evaluation = new Evaluation(testingSet, costClassifier.getCostMatrix());
+            evaluation.evaluateModel(costClassifier, testingSet);
+        }
+        catch(Exception e) {
+            throw new WekaException(e);
+        }
+
+        setEvaluationData(data, trainingSet, testingSet, evaluation);
+    }
+
+    // plain and threshold settings on the distributions of the trained classifier,
+    // the threshold setting takes the minimum expected cost class of each distribution
+    private static void evaluatePredictions(WekaData data, Instances trainingSet, Instances testingSet, Predictions predictions, CostSensitive costSensitive) throws WekaException {
+        Evaluation evaluation;
 
         try {
-            // check if cost sensitive is applied
-            if(costClassifier == null) {
-                // no cost sensitive
+            if(costSensitive == CostSensitive.NO_COST_SENSITIVE) {
                 evaluation = new Evaluation(trainingSet);
-                evaluation.evaluateModel(classifier, testingSet);
+                for(int k = 0; k < predictions.size(); k++)
+                    evaluation.evaluateModelOnceAndRecordPrediction(predictions.distribution(k), testingSet.instance(k));
+            }else if(costSensitive == CostSensitive.SENSITIVE_THRESHOLD) {
+                evaluation = new Evaluation(testingSet, generateCostMatrix(CFP, CFN));
+                for(int k = 0; k < predictions.size(); k++)
+                    evaluation.evaluateModelOnceAndRecordPrediction(predictions.decision(k, CFP, CFN), testingSet.instance(k));
             }else {
-                // cost sensitive
-                evaluation = new Evaluation(testingSet, costClassifier.getCostMatrix());
-                evaluation.evaluateModel(costClassifier, testingSet);
+                throw new IllegalArgumentException("cost sensitive learning needs its own training");
             }
-
+        }
+        catch(IllegalArgumentException e) {
+            throw e;
         }
         catch(Exception e) {
             throw new WekaException(e);
         }
 
+        setEvaluationData(data, trainingSet, testingSet, evaluation);
+    }
+
+    private static void setEvaluationData(WekaData data, Instances trainingSet, Instances testingSet, Evaluation evaluation) {
+        double trainingData;
+        double defectiveTraining;
+        double defectiveTesting;
+
         // set training and testing data
         trainingData = (double) 100 * trainingSet.size() / (trainingSet.size() + testingSet.size());
         defectiveTraining = 100 * countBuggyInstances(trainingSet)/(double)trainingSet.size();